@@ -0,0 +1,76 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.discobingohits.login_sockets_bingo.security.JwtService;
+import com.discobingohits.login_sockets_bingo.security.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT (firma, verificación con y sin caché) y BCrypt con el coste por
+ * defecto pasando por el pool de PasswordHashingService, como en el login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+    private JwtService cachedJwt;
+    // ttl 0: cada verificación comprueba la firma
+    private JwtService uncachedJwt;
+    private PasswordHashingService passwordHashing;
+    private String token;
+    private String passwordHash;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        cachedJwt = new JwtService(10_000, 600, meterRegistry);
+        uncachedJwt = new JwtService(10_000, 0, meterRegistry);
+        passwordHashing = new PasswordHashingService(new BCryptPasswordEncoder(10), 1, 64, 5000, meterRegistry);
+        token = cachedJwt.generateToken("benchmark-user");
+        cachedJwt.validateToken(token);
+        passwordHash = passwordHashing.encode("correct horse battery staple");
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHashing.shutdown();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachedJwt.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public Boolean validateTokenCached() {
+        return cachedJwt.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean validateTokenUncached() {
+        return uncachedJwt.validateToken(token);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5, time = 5)
+    public boolean bcryptMatches() {
+        return passwordHashing.matches("correct horse battery staple", passwordHash);
+    }
+}
@@ -0,0 +1,72 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import com.discobingohits.login_sockets_bingo.protocol.RawJson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lo que hace broadcastToRoom en el hilo que difunde: codificar el evento una
+ * vez y encolarlo en el buffer de cada jugador, de 2 a 12 sesiones stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({"2", "4", "8", "12"})
+    public int players;
+
+    private GameFixture fixture;
+    private List<Player> recipients;
+    private OutboundEvent songRevealed;
+    private OutboundEvent rosterDelta;
+
+    @Setup
+    public void setup() throws Exception {
+        fixture = new GameFixture();
+        recipients = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            StubSession session = new StubSession("player-" + i);
+            fixture.broadcastEngine.register(session);
+            recipients.add(new Player(session.getId(), "Jugador " + i, i == 0, true, new Date()));
+        }
+        songRevealed = new OutboundEvents.SongRevealed(
+                new RawJson("{\"id\":42,\"title\":\"Night Fever\",\"artist\":\"Bee Gees\",\"year\":1977}"), "m-1");
+        rosterDelta = OutboundEvents.RosterDelta.changed(recipients.get(players - 1), null, 7, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void broadcastSongRevealed() throws Exception {
+        fixture.broadcastEngine.broadcast(GameFixture.ROOM_CODE, recipients, fixture.outboundWriter.frame(songRevealed));
+    }
+
+    @Benchmark
+    public void broadcastRosterDelta() throws Exception {
+        fixture.broadcastEngine.broadcast(GameFixture.ROOM_CODE, recipients, fixture.outboundWriter.frame(rosterDelta));
+    }
+}
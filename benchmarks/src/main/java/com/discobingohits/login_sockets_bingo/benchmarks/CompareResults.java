@@ -0,0 +1,85 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compara dos ficheros de resultados JSON de JMH (base y nuevo) y termina con
+ * código 1 si algún benchmark empeora más que el umbral (10 % por defecto).
+ *
+ *   java -cp target/benchmarks.jar \
+ *       com.discobingohits.login_sockets_bingo.benchmarks.CompareResults base.json nuevo.json [umbral%]
+ */
+public final class CompareResults {
+
+    private record Score(double value, double error, String unit, boolean higherIsBetter) {
+    }
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Uso: CompareResults <base.json> <nuevo.json> [umbral%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Score> base = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Base", "Nuevo", "Cambio");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = base.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.value(), "nuevo");
+                continue;
+            }
+            // Positivo = peor, tanto en modos de tiempo como de throughput
+            double change = (now.value() - before.value()) / before.value() * 100;
+            double worse = now.higherIsBetter() ? -change : change;
+            // Un cambio dentro del margen de error de ambas medidas no cuenta como regresión
+            boolean significant = Math.abs(now.value() - before.value()) > now.error() + before.error();
+            boolean regression = significant && worse > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s %s%n", entry.getKey(), before.value(), now.value(),
+                    change, regression ? " !" : "", now.unit());
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%n%d benchmark(s) empeoran más de un %.1f %%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws Exception {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(' ').append(result.path("mode").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            JsonNode metric = result.path("primaryMetric");
+            String mode = result.path("mode").asText();
+            // Con una sola iteración JMH escribe "NaN" como error
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key.toString(), new Score(
+                    metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText(),
+                    "thrpt".equals(mode)));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,87 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.discobingohits.login_sockets_bingo.broadcast.BroadcastEngine;
+import com.discobingohits.login_sockets_bingo.broadcast.SlowConsumerPolicy;
+import com.discobingohits.login_sockets_bingo.cluster.ClusterRouter;
+import com.discobingohits.login_sockets_bingo.cluster.LoopbackClusterBus;
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.handler.GameWebSocketHandler;
+import com.discobingohits.login_sockets_bingo.handler.RateLimitPolicy;
+import com.discobingohits.login_sockets_bingo.journal.RoomJournal;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monta el handler con las mismas piezas que en producción pero sin Spring:
+ * clúster, journal y límites de entrada desactivados, admisión inmediata y
+ * DROP_OLDEST para que el bucle del benchmark no acabe cerrando sesiones por
+ * consumidor lento.
+ */
+final class GameFixture implements AutoCloseable {
+    static final String ROOM_CODE = "BENCH1";
+
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final SocketExecutors socketExecutors;
+    final OutboundWriter outboundWriter = new OutboundWriter();
+    final BroadcastEngine broadcastEngine;
+    final GameWebSocketHandler handler;
+    final StubSession host = new StubSession("host");
+    final List<StubSession> players = new ArrayList<>();
+    private final RoomJournal roomJournal;
+
+    GameFixture() throws Exception {
+        this.socketExecutors = new SocketExecutors(1, 4, new StandardEnvironment());
+        this.broadcastEngine = new BroadcastEngine(socketExecutors, 5000, 1000, 1000, 64 * 1024 * 1024,
+                SlowConsumerPolicy.DROP_OLDEST, Long.MAX_VALUE / 1_000_000, meterRegistry);
+        InboundDecoder inboundDecoder = new InboundDecoder();
+        ClusterRouter clusterRouter = new ClusterRouter(false, "bench", List.of("bench"), 1,
+                new LoopbackClusterBus(), broadcastEngine, inboundDecoder, outboundWriter, meterRegistry);
+        this.roomJournal = new RoomJournal(false, "target/journal", 1 << 20, 10, 60_000, meterRegistry);
+        this.handler = new GameWebSocketHandler(broadcastEngine, inboundDecoder, outboundWriter, clusterRouter,
+                roomJournal, socketExecutors, 0, 1800, 21600, 600,
+                false, "", "", RateLimitPolicy.DROP, false, 50, Set.of(), meterRegistry);
+    }
+
+    // Crea la sala (el host cuenta como jugador) y espera a que el resto reciba roomJoined
+    void openRoom(int playerCount) throws Exception {
+        handler.afterConnectionEstablished(host);
+        send(host, "{\"event\":\"createRoom\",\"data\":{\"messageId\":\"c-1\",\"config\":"
+                + "{\"roomCode\":\"" + ROOM_CODE + "\",\"difficulty\":\"normal\",\"maxPlayers\":12}}}");
+        for (int i = 1; i < playerCount; i++) {
+            StubSession player = new StubSession("player-" + i);
+            players.add(player);
+            handler.afterConnectionEstablished(player);
+            send(player, "{\"event\":\"joinRoom\",\"data\":{\"roomCode\":\"" + ROOM_CODE
+                    + "\",\"name\":\"Jugador " + i + "\"}}");
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (StubSession player : players) {
+            while (player.getMessages() == 0) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("El jugador " + player.getId() + " no entró en la sala");
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    void send(StubSession session, String json) throws Exception {
+        handler.handleMessage(session, new TextMessage(json));
+    }
+
+    @Override
+    public void close() {
+        roomJournal.shutdown();
+        socketExecutors.shutdown();
+    }
+}
@@ -0,0 +1,74 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de handleTextMessage por tipo de evento en una sala de 8 jugadores:
+ * decode, búsqueda de la sala, lógica del evento y encolado de la respuesta o
+ * de la difusión. El envío real lo hacen los hilos ws-send- contra sesiones
+ * stub y no entra en la medida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerDispatchBenchmark {
+    private static final int PLAYERS = 8;
+
+    @Param({"checkRoom", "syncRoster", "playerReady", "selectCategory", "revealSong", "enableMarking", "winner"})
+    public String event;
+
+    private GameFixture fixture;
+    private StubSession sender;
+    private TextMessage message;
+
+    @Setup
+    public void setup() throws Exception {
+        fixture = new GameFixture();
+        fixture.openRoom(PLAYERS);
+
+        // Los eventos de host los manda el host; el resto, un jugador cualquiera
+        boolean hostOnly = switch (event) {
+            case "selectCategory", "revealSong", "enableMarking" -> true;
+            default -> false;
+        };
+        sender = hostOnly ? fixture.host : fixture.players.get(0);
+        message = new TextMessage("{\"event\":\"" + event + "\",\"data\":{\"roomCode\":\""
+                + GameFixture.ROOM_CODE + "\",\"messageId\":\"m-1\"" + extraData(event) + "}}");
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void handleTextMessage() throws Exception {
+        fixture.handler.handleMessage(sender, message);
+    }
+
+    private static String extraData(String event) {
+        return switch (event) {
+            case "selectCategory" -> ",\"category\":{\"id\":3,\"name\":\"Disco 70s\"}";
+            case "revealSong" -> ",\"songData\":{\"id\":42,\"title\":\"Night Fever\",\"artist\":\"Bee Gees\",\"year\":1977}";
+            case "winner" -> ",\"playerName\":\"Jugador 1\"";
+            default -> "";
+        };
+    }
+}
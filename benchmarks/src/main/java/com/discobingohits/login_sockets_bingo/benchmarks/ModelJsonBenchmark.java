@@ -0,0 +1,81 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.GameState;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización Jackson de GameRoom (12 jugadores) y Player con el mismo
+ * ObjectMapper que configura Spring Boot. GameRoom no tiene constructor
+ * vacío, así que el decode rellena una sala ya creada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelJsonBenchmark {
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private GameRoom room;
+    private Player player;
+    private String roomJson;
+    private String playerJson;
+    private ObjectReader playerReader;
+
+    @Setup
+    public void setup() throws Exception {
+        GameConfig config = new GameConfig();
+        config.setRoomCode("ABC123");
+        config.setDifficulty("normal");
+        room = new GameRoom("session-0", config);
+        room.setCode("ABC123");
+        room.setGameState(new GameState("normal", new Date(), 3));
+        for (int i = 0; i < 12; i++) {
+            room.getPlayers().add(new Player("session-" + i, "Jugador " + i, i == 0, true, new Date()));
+        }
+        player = room.getPlayers().get(5);
+        roomJson = mapper.writeValueAsString(room);
+        playerJson = mapper.writeValueAsString(player);
+        playerReader = mapper.readerFor(Player.class);
+    }
+
+    @Benchmark
+    public String encodeRoom() throws Exception {
+        return mapper.writeValueAsString(room);
+    }
+
+    @Benchmark
+    public GameRoom decodeRoom() throws Exception {
+        GameRoom target = new GameRoom(null, new GameConfig());
+        return mapper.readerForUpdating(target).readValue(roomJson);
+    }
+
+    @Benchmark
+    public String encodePlayer() throws Exception {
+        return mapper.writeValueAsString(player);
+    }
+
+    @Benchmark
+    public Player decodePlayer() throws Exception {
+        return playerReader.readValue(playerJson);
+    }
+}
@@ -0,0 +1,38 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación de códigos de sala y cálculo de la clave numérica con la que se
+ * indexan en el registro (se hace en cada mensaje que trae roomCode).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomCodeBenchmark {
+    private final String code = "GCL25Z";
+
+    @Benchmark
+    public String randomCode() {
+        return RoomCodes.random();
+    }
+
+    @Benchmark
+    public long codeKey() {
+        return RoomCodes.key(code);
+    }
+}
@@ -0,0 +1,119 @@
+package com.discobingohits.login_sockets_bingo.benchmarks;
+
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.discobingohits.login_sockets_bingo.protocol.InboundCommand;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import com.discobingohits.login_sockets_bingo.protocol.RawJson;
+import com.discobingohits.login_sockets_bingo.protocol.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara JSON y CBOR en los mensajes más frecuentes: la foto de la sala al
+ * entrar (12 jugadores), la canción revelada (~2 KB) y el decode de un
+ * revealSong entrante. Los tamaños de cada frame se imprimen en el setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+    private final OutboundWriter writer = new OutboundWriter();
+    private final InboundDecoder decoder = new InboundDecoder();
+
+    private OutboundEvent roomJoined;
+    private OutboundEvent songRevealed;
+    private String revealSongJson;
+    private ByteBuffer revealSongCbor;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            players.add(new Player("session-" + i, "Jugador " + i, i == 0, i % 2 == 0, new Date()));
+        }
+        RawJson config = new RawJson("{\"roomCode\":\"ABC123\",\"difficulty\":\"normal\",\"maxPlayers\":12}");
+        roomJoined = new OutboundEvents.RoomJoined("ABC123", players, 12, config, "waiting", null, null, false, "m-1");
+
+        String songData = songData();
+        songRevealed = new OutboundEvents.SongRevealed(new RawJson(songData), "m-2");
+
+        Map<String, Object> revealSong = Map.of("event", "revealSong",
+                "data", Map.of("roomCode", "ABC123", "messageId", "m-3",
+                        "songData", new ObjectMapper().readValue(songData, Object.class)));
+        revealSongJson = new ObjectMapper().writeValueAsString(revealSong);
+        revealSongCbor = ByteBuffer.wrap(new CBORMapper().writeValueAsBytes(revealSong));
+
+        for (WireFormat format : WireFormat.values()) {
+            System.out.printf("%n%s roomJoined=%d B songRevealed=%d B%n", format,
+                    writer.encode(roomJoined, format).getPayloadLength(),
+                    writer.encode(songRevealed, format).getPayloadLength());
+        }
+        System.out.printf("revealSong entrante: json=%d B cbor=%d B%n",
+                revealSongJson.length(), revealSongCbor.remaining());
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encodeRoomJoinedJson() throws Exception {
+        return writer.encode(roomJoined, WireFormat.JSON);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encodeRoomJoinedCbor() throws Exception {
+        return writer.encode(roomJoined, WireFormat.CBOR);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encodeSongRevealedJson() throws Exception {
+        return writer.encode(songRevealed, WireFormat.JSON);
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encodeSongRevealedCbor() throws Exception {
+        return writer.encode(songRevealed, WireFormat.CBOR);
+    }
+
+    @Benchmark
+    public String decodeRevealSongJson() throws Exception {
+        InboundCommand command = decoder.decode(revealSongJson);
+        return command.getSongData();
+    }
+
+    @Benchmark
+    public String decodeRevealSongCbor() throws Exception {
+        InboundCommand command = decoder.decode(revealSongCbor.duplicate());
+        return command.getSongData();
+    }
+
+    private static String songData() {
+        StringBuilder lyrics = new StringBuilder();
+        while (lyrics.length() < 1800) {
+            lyrics.append("Night fever, night fever, we know how to do it. ");
+        }
+        return "{\"id\":42,\"title\":\"Night Fever\",\"artist\":\"Bee Gees\",\"year\":1977,"
+                + "\"category\":\"disco\",\"duration\":213,\"lyrics\":\"" + lyrics + "\"}";
+    }
+}
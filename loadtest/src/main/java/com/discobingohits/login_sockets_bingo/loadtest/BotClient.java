@@ -0,0 +1,113 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Un jugador simulado: una conexión, envío de comandos con messageId y
+ * lectura de lo que llega para cerrar las esperas de Expectations.
+ */
+class BotClient extends TextWebSocketHandler {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String name;
+    private final Expectations expectations;
+    private final LatencyStats stats;
+    private volatile WebSocketSession session;
+
+    BotClient(String name, Expectations expectations, LatencyStats stats) {
+        this.name = name;
+        this.expectations = expectations;
+        this.stats = stats;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void attach(WebSocketSession session) {
+        this.session = new ConcurrentWebSocketSessionDecorator(session, 10_000, 1024 * 1024);
+    }
+
+    /**
+     * Envía {"event", "data"} con un messageId nuevo y espera a que la
+     * respuesta (o la difusión) llegue a los destinatarios indicados.
+     */
+    CompletableFuture<JsonNode> request(String event, ObjectNode data, int recipients) {
+        return request(event, data, recipients, event, System.nanoTime());
+    }
+
+    CompletableFuture<JsonNode> request(String event, ObjectNode data, int recipients, String label, long startedAt) {
+        String messageId = expectations.nextId();
+        data.put("messageId", messageId);
+        ObjectNode message = MAPPER.createObjectNode();
+        message.put("event", event);
+        message.set("data", data);
+
+        CompletableFuture<JsonNode> response = expectations.expect(messageId, label, startedAt, recipients);
+        try {
+            session.sendMessage(new TextMessage(MAPPER.writeValueAsString(message)));
+            stats.sent.increment();
+        } catch (IOException | RuntimeException e) {
+            expectations.failed(messageId, "envío fallido: " + e.getMessage());
+        }
+        return response;
+    }
+
+    static ObjectNode data(String roomCode) {
+        ObjectNode data = MAPPER.createObjectNode();
+        if (roomCode != null) {
+            data.put("roomCode", roomCode);
+        }
+        return data;
+    }
+
+    void close() {
+        WebSocketSession current = session;
+        if (current != null && current.isOpen()) {
+            try {
+                current.close(CloseStatus.GOING_AWAY);
+            } catch (IOException e) {
+                // ya cerrada
+            }
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        long now = System.nanoTime();
+        stats.received.increment();
+        JsonNode node = MAPPER.readTree(message.getPayload());
+        // Con app.socket.coalesce activo varios eventos llegan en un mismo frame
+        if ("batch".equals(node.path("event").asText())) {
+            for (JsonNode event : node.path("events")) {
+                handleEvent(event, now);
+            }
+            return;
+        }
+        handleEvent(node, now);
+    }
+
+    private void handleEvent(JsonNode node, long now) {
+        String messageId = node.path("messageId").asText(null);
+        if ("error".equals(node.path("event").asText())) {
+            stats.errors.increment();
+            if (messageId != null) {
+                expectations.failed(messageId, node.path("code").asText() + " " + node.path("message").asText());
+            }
+            return;
+        }
+        if (messageId != null) {
+            expectations.received(messageId, node, now);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.sockjs.client.RestTemplateXhrTransport;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Abre conexiones con un límite de handshakes simultáneos. Las peticiones que
+ * superan el límite esperan en cola sin bloquear ningún hilo.
+ */
+class Connector {
+    // Mismo origen que el front en local; el servidor rechaza orígenes no permitidos
+    private static final String ORIGIN = "http://localhost:5173";
+
+    private record Pending(BotClient bot, CompletableFuture<BotClient> result) {
+    }
+
+    private final WebSocketClient client;
+    private final URI uri;
+    private final WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+    private final LatencyStats stats;
+    private final int maxInFlight;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    Connector(LoadTestOptions options, String baseUrl, String token, LatencyStats stats) {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        if (options.transport() == LoadTestOptions.Transport.SOCKJS) {
+            this.client = new SockJsClient(List.of(
+                    new WebSocketTransport(new StandardWebSocketClient()),
+                    new RestTemplateXhrTransport()));
+            this.uri = URI.create(base + "/socket?token=" + token);
+        } else {
+            this.client = new StandardWebSocketClient();
+            this.uri = URI.create(base.replaceFirst("^http", "ws") + "/socket/ws?token=" + token);
+        }
+        this.headers.setOrigin(ORIGIN);
+        this.stats = stats;
+        this.maxInFlight = options.connectConcurrency();
+    }
+
+    CompletableFuture<BotClient> connect(BotClient bot) {
+        CompletableFuture<BotClient> result = new CompletableFuture<>();
+        queue.add(new Pending(bot, result));
+        pump();
+        return result;
+    }
+
+    private void pump() {
+        while (!queue.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Pending pending = queue.poll();
+            if (pending == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            start(pending);
+        }
+    }
+
+    private void start(Pending pending) {
+        long startedAt = System.nanoTime();
+        CompletableFuture<WebSocketSession> handshake;
+        try {
+            handshake = client.execute(pending.bot(), headers, uri);
+        } catch (RuntimeException e) {
+            handshake = CompletableFuture.failedFuture(e);
+        }
+        handshake.whenComplete((session, error) -> {
+            inFlight.decrementAndGet();
+            if (error != null) {
+                stats.connectFailures.increment();
+                pending.result().completeExceptionally(error);
+            } else {
+                stats.record("connect", System.nanoTime() - startedAt);
+                pending.bot().attach(session);
+                pending.result().complete(pending.bot());
+            }
+            pump();
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Respuestas pendientes por messageId. El servidor devuelve el messageId del
+ * comando en la respuesta y en la difusión que provoca, así que cada llegada
+ * se mide contra el instante de envío y la espera termina cuando han llegado
+ * todas las esperadas.
+ */
+class Expectations {
+
+    private static final class Expectation {
+        final String label;
+        final long startedAt;
+        final AtomicInteger remaining;
+        final CompletableFuture<JsonNode> done = new CompletableFuture<>();
+
+        Expectation(String label, long startedAt, int recipients) {
+            this.label = label;
+            this.startedAt = startedAt;
+            this.remaining = new AtomicInteger(recipients);
+        }
+    }
+
+    private final Map<String, Expectation> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final LatencyStats stats;
+    private final long timeoutMs;
+
+    Expectations(LatencyStats stats, long timeoutMs) {
+        this.stats = stats;
+        this.timeoutMs = timeoutMs;
+    }
+
+    String nextId() {
+        return "lt-" + ids.incrementAndGet();
+    }
+
+    // Se registra antes de enviar para no perder respuestas muy rápidas
+    CompletableFuture<JsonNode> expect(String messageId, String label, long startedAt, int recipients) {
+        Expectation expectation = new Expectation(label, startedAt, recipients);
+        pending.put(messageId, expectation);
+        return expectation.done
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((node, error) -> {
+                    if (error instanceof TimeoutException && pending.remove(messageId) != null) {
+                        stats.timeouts.increment();
+                    }
+                });
+    }
+
+    void received(String messageId, JsonNode message, long now) {
+        Expectation expectation = pending.get(messageId);
+        if (expectation == null) {
+            return;
+        }
+        stats.record(expectation.label, now - expectation.startedAt);
+        if (expectation.remaining.decrementAndGet() == 0 && pending.remove(messageId) != null) {
+            expectation.done.complete(message);
+        }
+    }
+
+    void failed(String messageId, String reason) {
+        Expectation expectation = pending.remove(messageId);
+        if (expectation != null) {
+            expectation.done.completeExceptionally(new IllegalStateException(expectation.label + ": " + reason));
+        }
+    }
+
+    int size() {
+        return pending.size();
+    }
+}
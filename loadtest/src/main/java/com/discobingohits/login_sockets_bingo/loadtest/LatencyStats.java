@@ -0,0 +1,79 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias por evento desde que el cliente envía el comando hasta que cada
+ * destinatario recibe la respuesta o la difusión, más contadores globales.
+ */
+class LatencyStats {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<String, ConcurrentHistogram> histograms = new ConcurrentHashMap<>();
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder timeouts = new LongAdder();
+    final LongAdder connectFailures = new LongAdder();
+    final LongAdder failedRooms = new LongAdder();
+
+    void record(String event, long latencyNanos) {
+        histograms.computeIfAbsent(event, e -> new ConcurrentHistogram(MAX_LATENCY_NANOS, 3))
+                .recordValue(Math.min(Math.max(latencyNanos, 0), MAX_LATENCY_NANOS));
+    }
+
+    Map<String, Object> report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", round(seconds));
+        report.put("sent", sent.sum());
+        report.put("received", received.sum());
+        report.put("sentPerSecond", round(sent.sum() / seconds));
+        report.put("receivedPerSecond", round(received.sum() / seconds));
+        report.put("errors", errors.sum());
+        report.put("timeouts", timeouts.sum());
+        report.put("connectFailures", connectFailures.sum());
+        report.put("failedRooms", failedRooms.sum());
+
+        Map<String, Object> events = new TreeMap<>();
+        histograms.forEach((event, histogram) -> {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", histogram.getTotalCount());
+            latency.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            latency.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            latency.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            latency.put("maxMs", millis(histogram.getMaxValue()));
+            events.put(event, latency);
+        });
+        report.put("latency", events);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report) {
+        System.out.printf("%nDuración %s s | enviados %s (%s/s) | recibidos %s (%s/s)%n",
+                report.get("durationSeconds"), report.get("sent"), report.get("sentPerSecond"),
+                report.get("received"), report.get("receivedPerSecond"));
+        System.out.printf("Errores %s | timeouts %s | conexiones fallidas %s | salas fallidas %s%n%n",
+                report.get("errors"), report.get("timeouts"), report.get("connectFailures"), report.get("failedRooms"));
+        System.out.printf("%-22s %10s %10s %10s %10s %10s%n", "Evento", "n", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        ((Map<String, Map<String, Object>>) report.get("latency")).forEach((event, latency) ->
+                System.out.printf("%-22s %10s %10s %10s %10s %10s%n", event, latency.get("count"),
+                        latency.get("p50Ms"), latency.get("p99Ms"), latency.get("p999Ms"), latency.get("maxMs")));
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import com.discobingohits.login_sockets_bingo.LoginSocketsBingoApplication;
+import com.discobingohits.login_sockets_bingo.netty.NettySocketServer;
+import com.discobingohits.login_sockets_bingo.security.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de carga: N salas × M jugadores sobre conexiones reales. Sin --url
+ * arranca la aplicación en este mismo proceso (perfil dev, puerto libre).
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.url();
+        if (baseUrl == null) {
+            context = startApplication(options);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            // Con --app.socket.engine=netty los sockets van al puerto del motor Netty
+            NettySocketServer nettyServer = context.getBeanProvider(NettySocketServer.class).getIfAvailable();
+            if (nettyServer != null) {
+                port = nettyServer.getPort();
+            }
+            baseUrl = "http://localhost:" + port;
+        }
+
+        // Mismo secreto que el servidor; el handshake solo comprueba la firma
+        String token = new JwtService(1, 1, new SimpleMeterRegistry()).generateToken("loadtest");
+
+        LatencyStats stats = new LatencyStats();
+        Expectations expectations = new Expectations(stats, options.timeoutMs());
+        Connector connector = new Connector(options, baseUrl, token, stats);
+        CompletableFuture<Void> stormSignal = new CompletableFuture<>();
+
+        System.out.printf("%d salas × %d jugadores contra %s (%s, %s)%n", options.rooms(), options.players(),
+                baseUrl, options.transport(), options.scenario());
+
+        long startedAt = System.nanoTime();
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loadtest-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> System.out.printf("  %ds: enviados %d, recibidos %d, pendientes %d, errores %d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt), stats.sent.sum(), stats.received.sum(),
+                expectations.size(), stats.errors.sum()), 5, 5, TimeUnit.SECONDS);
+
+        List<RoomDriver> drivers = new ArrayList<>();
+        List<CompletableFuture<Void>> runs = new ArrayList<>();
+        for (int i = 0; i < options.rooms(); i++) {
+            RoomDriver driver = new RoomDriver(i, options, connector, expectations, stats, stormSignal);
+            drivers.add(driver);
+            runs.add(driver.run());
+        }
+        CompletableFuture.allOf(drivers.stream().map(d -> d.readyForStorm).toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    if (options.scenario() == LoadTestOptions.Scenario.RECONNECT_STORM) {
+                        System.out.printf("  Tormenta de reconexión: %d jugadores%n",
+                                options.rooms() * (options.players() - 1));
+                    }
+                    stormSignal.complete(null);
+                });
+
+        // Los fallos de cada sala ya se cuentan en stats.failedRooms
+        CompletableFuture.allOf(runs.stream().map(run -> run.exceptionally(e -> null))
+                .toArray(CompletableFuture[]::new)).join();
+        long elapsed = System.nanoTime() - startedAt;
+        progress.shutdownNow();
+
+        Map<String, Object> report = stats.report(elapsed);
+        LatencyStats.print(report);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(options.resultFile()), report);
+        System.out.printf("%nResultados en %s%n", options.resultFile());
+
+        if (context != null) {
+            context.close();
+        }
+        System.exit(stats.failedRooms.sum() > 0 ? 1 : 0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options) {
+        List<String> appArguments = new ArrayList<>(options.appArguments());
+        // Valores por defecto salvo que el usuario pase la misma opción
+        for (String defaultArgument : List.of("--spring.profiles.active=dev", "--server.port=0",
+                "--spring.jpa.show-sql=false", "--logging.level.root=WARN")) {
+            String key = defaultArgument.substring(0, defaultArgument.indexOf('=') + 1);
+            if (appArguments.stream().noneMatch(arg -> arg.startsWith(key))) {
+                appArguments.add(defaultArgument);
+            }
+        }
+        return new SpringApplicationBuilder(LoginSocketsBingoApplication.class)
+                .run(appArguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,78 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opciones de la prueba en formato --clave=valor. Las que empiezan por
+ * --spring., --server. o --app. se pasan tal cual a la aplicación cuando se
+ * arranca en el mismo proceso.
+ */
+record LoadTestOptions(
+        String url,
+        Transport transport,
+        Scenario scenario,
+        int rooms,
+        int players,
+        int rounds,
+        int songsPerRound,
+        long thinkMs,
+        int connectConcurrency,
+        long timeoutMs,
+        String resultFile,
+        List<String> appArguments) {
+
+    enum Transport {
+        // WebSocket nativo contra /socket/ws
+        WS,
+        // Cliente SockJS contra /socket (negocia transporte como el navegador)
+        SOCKJS
+    }
+
+    enum Scenario {
+        LIFECYCLE,
+        // Tras startGame todos los jugadores se desconectan a la vez y vuelven a entrar
+        RECONNECT_STORM
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> appArguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--server.") || arg.startsWith("--app.")) {
+                appArguments.add(arg);
+                continue;
+            }
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Argumento no válido: " + arg + " (se espera --clave=valor)");
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.remove("url"),
+                Transport.valueOf(values.getOrDefault("transport", "ws").toUpperCase().replace('-', '_')),
+                Scenario.valueOf(values.getOrDefault("scenario", "lifecycle").toUpperCase().replace('-', '_')),
+                Integer.parseInt(values.getOrDefault("rooms", "100")),
+                Integer.parseInt(values.getOrDefault("players", "8")),
+                Integer.parseInt(values.getOrDefault("rounds", "3")),
+                Integer.parseInt(values.getOrDefault("songs-per-round", "5")),
+                Long.parseLong(values.getOrDefault("think-ms", "1000")),
+                Integer.parseInt(values.getOrDefault("connect-concurrency", "200")),
+                Long.parseLong(values.getOrDefault("timeout-ms", "30000")),
+                values.getOrDefault("result-file", "loadtest-result.json"),
+                appArguments);
+        values.keySet().removeAll(List.of("transport", "scenario", "rooms", "players", "rounds", "songs-per-round",
+                "think-ms", "connect-concurrency", "timeout-ms", "result-file"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Opciones desconocidas: " + values.keySet());
+        }
+        if (options.players < 2 || options.players > 12) {
+            throw new IllegalArgumentException("--players debe estar entre 2 y 12 (host incluido)");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,154 @@
+package com.discobingohits.login_sockets_bingo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorre la partida completa de una sala: conectar, createRoom, joinRoom,
+ * playerReady, startGame, rondas de selectCategory y revealSong, marcado y
+ * winner. Cada paso espera a que todos los destinatarios reciban la difusión
+ * y a continuación deja pasar el tiempo de reflexión del host.
+ */
+class RoomDriver {
+    private final LoadTestOptions options;
+    private final Connector connector;
+    private final LatencyStats stats;
+    private final CompletableFuture<Void> stormSignal;
+    // Se completa al llegar al punto de la tormenta (o al fallar antes)
+    final CompletableFuture<Void> readyForStorm = new CompletableFuture<>();
+    private final Executor thinkDelay;
+    private final BotClient host;
+    private final List<BotClient> players = new ArrayList<>();
+    private volatile String roomCode;
+
+    RoomDriver(int index, LoadTestOptions options, Connector connector, Expectations expectations, LatencyStats stats,
+               CompletableFuture<Void> stormSignal) {
+        this.options = options;
+        this.connector = connector;
+        this.stats = stats;
+        this.stormSignal = stormSignal;
+        this.thinkDelay = CompletableFuture.delayedExecutor(options.thinkMs(), TimeUnit.MILLISECONDS);
+        this.host = new BotClient("host-" + index, expectations, stats);
+        for (int i = 1; i < options.players(); i++) {
+            players.add(new BotClient("sala" + index + "-jugador" + i, expectations, stats));
+        }
+    }
+
+    CompletableFuture<Void> run() {
+        return connectAll()
+                .thenCompose(v -> createRoom())
+                .thenCompose(v -> joinAll())
+                .thenCompose(v -> readyAll())
+                .thenCompose(v -> think())
+                .thenCompose(v -> broadcast(host, "startGame", data().put("difficulty", "normal")))
+                .thenCompose(v -> options.scenario() == LoadTestOptions.Scenario.RECONNECT_STORM
+                        ? awaitStorm() : CompletableFuture.completedFuture(null))
+                .thenCompose(v -> round(0))
+                .thenCompose(v -> think())
+                .thenCompose(v -> broadcast(host, "enableMarking", data()))
+                .thenCompose(v -> think())
+                .thenCompose(v -> broadcast(players.get(0), "winner", data().put("playerName", players.get(0).getName())))
+                .thenCompose(v -> broadcast(host, "disableMarking", data()))
+                .whenComplete((v, error) -> {
+                    readyForStorm.complete(null);
+                    if (error != null) {
+                        stats.failedRooms.increment();
+                    }
+                    host.close();
+                    players.forEach(BotClient::close);
+                });
+    }
+
+    private CompletableFuture<Void> connectAll() {
+        List<CompletableFuture<BotClient>> connections = new ArrayList<>();
+        connections.add(connector.connect(host));
+        players.forEach(player -> connections.add(connector.connect(player)));
+        return CompletableFuture.allOf(connections.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> createRoom() {
+        ObjectNode config = data();
+        config.putObject("config").put("difficulty", "normal").put("maxPlayers", options.players());
+        return host.request("createRoom", config, 1)
+                .thenAccept(response -> roomCode = response.path("roomCode").asText());
+    }
+
+    // Entran todos a la vez; el servidor los admite de uno en uno por la cola de la sala
+    private CompletableFuture<Void> joinAll() {
+        List<CompletableFuture<JsonNode>> joins = new ArrayList<>();
+        for (BotClient player : players) {
+            joins.add(join(player, "joinRoom", System.nanoTime()));
+        }
+        return CompletableFuture.allOf(joins.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<JsonNode> join(BotClient player, String label, long startedAt) {
+        return player.request("joinRoom", data().put("name", player.getName()), 1, label, startedAt);
+    }
+
+    private CompletableFuture<Void> readyAll() {
+        List<CompletableFuture<JsonNode>> ready = new ArrayList<>();
+        for (BotClient player : players) {
+            ready.add(player.request("playerReady", data(), options.players()));
+        }
+        return CompletableFuture.allOf(ready.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> round(int round) {
+        if (round >= options.rounds()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ObjectNode category = data();
+        category.putObject("category").put("id", round).put("name", "Categoría " + round);
+        CompletableFuture<Void> steps = think().thenCompose(v -> broadcast(host, "selectCategory", category));
+        for (int song = 0; song < options.songsPerRound(); song++) {
+            ObjectNode songData = data();
+            songData.putObject("songData")
+                    .put("id", round * 100 + song)
+                    .put("title", "Canción " + song)
+                    .put("artist", "Artista " + song)
+                    .put("year", 1970 + song);
+            steps = steps.thenCompose(v -> think()).thenCompose(v -> broadcast(host, "revealSong", songData));
+        }
+        return steps.thenCompose(v -> round(round + 1));
+    }
+
+    // La tormenta empieza a la vez en todas las salas, cuando todas han llegado a startGame
+    private CompletableFuture<Void> awaitStorm() {
+        readyForStorm.complete(null);
+        return stormSignal.thenCompose(v -> reconnectStorm());
+    }
+
+    /**
+     * Todos los jugadores cierran a la vez y reconectan en el acto, como tras
+     * un corte de red en el local. Se mide desde el cierre hasta recibir
+     * roomJoined, handshake y cola de entrada incluidos.
+     */
+    private CompletableFuture<Void> reconnectStorm() {
+        long startedAt = System.nanoTime();
+        List<CompletableFuture<JsonNode>> rejoins = new ArrayList<>();
+        for (BotClient player : players) {
+            player.close();
+            rejoins.add(connector.connect(player).thenCompose(p -> join(p, "reconnect", startedAt)));
+        }
+        return CompletableFuture.allOf(rejoins.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> broadcast(BotClient sender, String event, ObjectNode data) {
+        return sender.request(event, data, options.players()).thenApply(response -> null);
+    }
+
+    private CompletableFuture<Void> think() {
+        return CompletableFuture.runAsync(() -> { }, thinkDelay);
+    }
+
+    private ObjectNode data() {
+        return BotClient.data(roomCode);
+    }
+}
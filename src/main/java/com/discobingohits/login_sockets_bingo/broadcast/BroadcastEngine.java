@@ -0,0 +1,266 @@
+package com.discobingohits.login_sockets_bingo.broadcast;
+
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundFrame;
+import com.discobingohits.login_sockets_bingo.protocol.WireFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.websocket.RemoteEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envía mensajes a las sesiones sin bloquear al hilo que los produce. Cada
+ * mensaje se construye una sola vez y se encola en el buffer de cada
+ * destinatario; un consumidor lento solo afecta a su propia cola. Un
+ * vigilante cierra las sesiones con un envío atascado más de
+ * send-time-limit-ms aunque no les llegue nada nuevo. Las sesiones Netty no
+ * pasan por ese buffer ni por los hilos de envío: su cola acotada, que Netty
+ * vacía según la demanda del canal, es el único límite.
+ */
+@Component
+public class BroadcastEngine {
+    private static final Logger log = LoggerFactory.getLogger(BroadcastEngine.class);
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final Map<SocketTransport, AtomicInteger> transportSessions = new EnumMap<>(SocketTransport.class);
+    private final Executor outboundExecutor;
+    private final int sendTimeLimitMs;
+    private final long sendTimeLimitNanos;
+    private final long blockingSendTimeoutMs;
+    private final int bufferSizeLimit;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final long slowFanoutNanos;
+    private final Timer fanoutTimer;
+    private final Timer enqueueTimer;
+    private final DistributionSummary fanoutSize;
+    private final Counter droppedMessages;
+    private final Counter disconnectedSessions;
+    private final Fanout.Listener fanoutListener = this::fanoutCompleted;
+    private final SessionOutbox.Listener outboxListener = this::sendFailed;
+
+    public BroadcastEngine(SocketExecutors socketExecutors,
+                           @Value("${app.socket.outbound.send-time-limit-ms:5000}") int sendTimeLimitMs,
+                           @Value("${app.socket.outbound.blocking-send-timeout-ms:1000}") long blockingSendTimeoutMs,
+                           @Value("${app.socket.outbound.watchdog-ms:1000}") long watchdogMs,
+                           @Value("${app.socket.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+                           @Value("${app.socket.outbound.slow-consumer-policy:DISCONNECT}") SlowConsumerPolicy slowConsumerPolicy,
+                           @Value("${app.socket.outbound.slow-fanout-warn-ms:250}") long slowFanoutWarnMs,
+                           MeterRegistry meterRegistry) {
+        this.outboundExecutor = socketExecutors.getOutboundExecutor();
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        this.blockingSendTimeoutMs = Math.min(blockingSendTimeoutMs, sendTimeLimitMs);
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.slowFanoutNanos = TimeUnit.MILLISECONDS.toNanos(slowFanoutWarnMs);
+        this.fanoutTimer = Timer.builder("bingo.broadcast.fanout.latency")
+                .description("Tiempo desde que se difunde un mensaje hasta que lo recibe el último jugador")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.enqueueTimer = Timer.builder("bingo.broadcast.enqueue")
+                .description("Tiempo que el hilo productor dedica a codificar y encolar una difusión")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.fanoutSize = DistributionSummary.builder("bingo.broadcast.fanout.size")
+                .description("Destinatarios por difusión")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.droppedMessages = Counter.builder("bingo.outbound.dropped")
+                .description("Mensajes descartados por consumidores lentos")
+                .register(meterRegistry);
+        this.disconnectedSessions = Counter.builder("bingo.outbound.disconnected")
+                .description("Sesiones cerradas por consumidores lentos")
+                .register(meterRegistry);
+        for (SocketTransport transport : SocketTransport.values()) {
+            AtomicInteger sessions = new AtomicInteger();
+            transportSessions.put(transport, sessions);
+            Gauge.builder("bingo.socket.sessions", sessions, AtomicInteger::get)
+                    .description("Sesiones abiertas en este nodo por transporte")
+                    .tag("transport", transport.getTag())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("bingo.outbound.buffered.bytes", outboxes, this::totalBufferedBytes)
+                .description("Bytes pendientes de enviar en todas las sesiones")
+                .register(meterRegistry);
+        socketExecutors.getOutboundWatchdogScheduler()
+                .scheduleWithFixedDelay(this::closeStalledSessions, watchdogMs, watchdogMs, TimeUnit.MILLISECONDS);
+    }
+
+    public WebSocketSession register(WebSocketSession session) {
+        SocketTransport transport = SocketTransport.of(session);
+        RemoteEndpoint.Async asyncRemote = null;
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session wsSession = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (wsSession != null) {
+                // Acota lo que un envío bloqueante (SockJS, cierres) retiene un hilo de envío
+                wsSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, blockingSendTimeoutMs);
+                // En WebSocket sin SockJS el mensaje va tal cual, así que se puede enviar en asíncrono
+                if (transport == SocketTransport.WEBSOCKET) {
+                    asyncRemote = wsSession.getAsyncRemote();
+                    asyncRemote.setSendTimeout(sendTimeLimitMs);
+                }
+            }
+        }
+        boolean direct = transport == SocketTransport.NETTY;
+        WebSocketSession target = asyncRemote != null || direct
+                ? session
+                : new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit);
+        outboxes.put(session.getId(), new SessionOutbox(target, asyncRemote, WireFormat.of(session), transport,
+                outboundExecutor, outboxListener, direct));
+        transportSessions.get(transport).incrementAndGet();
+        return target;
+    }
+
+    public void unregister(String sessionId) {
+        SessionOutbox outbox = outboxes.remove(sessionId);
+        if (outbox != null) {
+            transportSessions.get(outbox.getTransport()).decrementAndGet();
+            outbox.discardAll();
+        }
+    }
+
+    public int getSessionCount() {
+        return outboxes.size();
+    }
+
+    public void send(String sessionId, OutboundFrame frame) throws IOException {
+        SessionOutbox outbox = outboxes.get(sessionId);
+        if (outbox != null) {
+            offer(outbox, new SessionOutbox.Pending(frame.encode(outbox.getWireFormat()), null));
+        }
+    }
+
+    // El frame se codifica una vez por formato y se comparte entre los destinatarios
+    public void broadcast(String roomCode, Collection<Player> recipients, OutboundFrame frame) throws IOException {
+        long startedAt = System.nanoTime();
+        Fanout fanout = new Fanout(roomCode, fanoutListener);
+        try {
+            for (Player player : recipients) {
+                SessionOutbox outbox = outboxes.get(player.getId());
+                if (outbox != null && outbox.getSession().isOpen()) {
+                    WebSocketMessage<?> message = frame.encode(outbox.getWireFormat());
+                    fanout.addRecipient();
+                    offer(outbox, new SessionOutbox.Pending(message, fanout));
+                }
+            }
+        } finally {
+            fanout.sealed();
+            enqueueTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void offer(SessionOutbox outbox, SessionOutbox.Pending pending) {
+        boolean overLimit = outbox.getBufferedBytes() + pending.size > bufferSizeLimit
+                || outbox.isSendStalled(System.nanoTime(), sendTimeLimitNanos);
+
+        if (overLimit) {
+            switch (slowConsumerPolicy) {
+                case DROP_NEWEST -> {
+                    droppedMessages.increment();
+                    pending.complete();
+                    return;
+                }
+                case DROP_OLDEST -> {
+                    while (outbox.getBufferedBytes() + pending.size > bufferSizeLimit && outbox.dropOldest()) {
+                        droppedMessages.increment();
+                    }
+                }
+                case DISCONNECT -> {
+                    pending.complete();
+                    disconnect(outbox);
+                    return;
+                }
+            }
+        }
+
+        outbox.add(pending);
+    }
+
+    // Cierra la sesión desde los hilos de envío, descartando lo que tenga pendiente
+    public void close(String sessionId, CloseStatus status) {
+        SessionOutbox outbox = outboxes.get(sessionId);
+        if (outbox != null && outbox.markClosing()) {
+            close(outbox, status);
+        }
+    }
+
+    // Los envíos atascados no se detectan al encolar si a la sesión no le llega nada nuevo
+    void closeStalledSessions() {
+        try {
+            long now = System.nanoTime();
+            for (SessionOutbox outbox : outboxes.values()) {
+                if (outbox.isSendStalled(now, sendTimeLimitNanos)) {
+                    disconnect(outbox);
+                }
+            }
+        } catch (Exception e) {
+            // Una excepción cancelaría las siguientes ejecuciones del vigilante
+            log.error("Error al revisar los envíos atascados", e);
+        }
+    }
+
+    private void sendFailed(SessionOutbox outbox, Throwable error) {
+        log.debug("Error al enviar a la sesión {}: {}", outbox.getSession().getId(), error.getMessage());
+        disconnect(outbox);
+    }
+
+    private void disconnect(SessionOutbox outbox) {
+        if (!outbox.markClosing()) {
+            return;
+        }
+        disconnectedSessions.increment();
+        log.warn("Sesión {} cerrada por consumidor lento ({} bytes pendientes)", outbox.getSession().getId(), outbox.getBufferedBytes());
+        close(outbox, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private void close(SessionOutbox outbox, CloseStatus status) {
+        WebSocketSession session = outbox.getSession();
+        outbox.discardAll();
+        outboundExecutor.execute(() -> {
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                log.debug("Error al cerrar la sesión {}: {}", session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private void fanoutCompleted(String roomCode, int recipients, long latencyNanos) {
+        fanoutTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        fanoutSize.record(recipients);
+        if (latencyNanos > slowFanoutNanos) {
+            log.warn("Difusión lenta en la sala {}: {} jugadores en {} ms",
+                    roomCode, recipients, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+    }
+
+    private double totalBufferedBytes(Map<String, SessionOutbox> outboxes) {
+        long total = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            total += outbox.getBufferedBytes();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,40 @@
+package com.discobingohits.login_sockets_bingo.broadcast;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seguimiento de una difusión: cuando el último destinatario recibe (o descarta)
+ * el mensaje se notifica la latencia total del reparto.
+ */
+class Fanout {
+    interface Listener {
+        void completed(String roomCode, int recipients, long latencyNanos);
+    }
+
+    private final String roomCode;
+    private final long startedAt = System.nanoTime();
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final Listener listener;
+    private int recipients;
+
+    Fanout(String roomCode, Listener listener) {
+        this.roomCode = roomCode;
+        this.listener = listener;
+    }
+
+    void addRecipient() {
+        recipients++;
+        pending.incrementAndGet();
+    }
+
+    // Se llama una vez al terminar de encolar para liberar la reserva inicial
+    void sealed() {
+        delivered();
+    }
+
+    void delivered() {
+        if (pending.decrementAndGet() == 0) {
+            listener.completed(roomCode, recipients, System.nanoTime() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.discobingohits.login_sockets_bingo.broadcast;
+
+import com.discobingohits.login_sockets_bingo.protocol.WireFormat;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffer de salida acotado de una sesión. Solo hay un vaciado en curso por
+ * sesión, así que los envíos al socket nunca se solapan y se respeta el orden.
+ * Con un RemoteEndpoint.Async (WebSocket nativo) el envío no ocupa ningún
+ * hilo mientras el cliente no lee; el resto de sesiones (SockJS) envían en
+ * bloqueante con el timeout de envío bloqueante del contenedor. Las sesiones
+ * directas (Netty) ya encolan sin bloquear en su propia cola acotada, así que
+ * se les entrega el mensaje en el hilo que lo produce, sin buffer intermedio.
+ */
+class SessionOutbox {
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbox.class);
+    private static final int MAX_MESSAGES_PER_DRAIN = 32;
+
+    interface Listener {
+        // El envío falló con la sesión abierta: el socket ya no es fiable
+        void sendFailed(SessionOutbox outbox, Throwable error);
+    }
+
+    static final class Pending {
+        final WebSocketMessage<?> message;
+        final int size;
+        final Fanout fanout;
+
+        Pending(WebSocketMessage<?> message, Fanout fanout) {
+            this.message = message;
+            this.size = message.getPayloadLength();
+            this.fanout = fanout;
+        }
+
+        void complete() {
+            if (fanout != null) {
+                fanout.delivered();
+            }
+        }
+    }
+
+    private final WebSocketSession session;
+    private final RemoteEndpoint.Async asyncRemote;
+    private final WireFormat wireFormat;
+    private final SocketTransport transport;
+    private final Executor executor;
+    private final Listener listener;
+    private final boolean direct;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedBytes = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private volatile long sendStartedAt;
+
+    SessionOutbox(WebSocketSession session, RemoteEndpoint.Async asyncRemote, WireFormat wireFormat,
+                  SocketTransport transport, Executor executor, Listener listener, boolean direct) {
+        this.session = session;
+        this.asyncRemote = asyncRemote;
+        this.wireFormat = wireFormat;
+        this.transport = transport;
+        this.executor = executor;
+        this.listener = listener;
+        this.direct = direct;
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    SocketTransport getTransport() {
+        return transport;
+    }
+
+    int getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    boolean isSendStalled(long now, long sendTimeLimitNanos) {
+        long started = sendStartedAt;
+        return started != 0 && now - started > sendTimeLimitNanos;
+    }
+
+    void add(Pending pending) {
+        if (direct) {
+            sendDirect(pending);
+            return;
+        }
+        bufferedBytes.addAndGet(pending.size);
+        queue.add(pending);
+        scheduleDrain();
+    }
+
+    boolean dropOldest() {
+        Pending oldest = queue.poll();
+        if (oldest == null) {
+            return false;
+        }
+        bufferedBytes.addAndGet(-oldest.size);
+        oldest.complete();
+        return true;
+    }
+
+    boolean markClosing() {
+        return closing.compareAndSet(false, true);
+    }
+
+    void discardAll() {
+        while (dropOldest()) {
+            // vaciar
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(asyncRemote != null ? this::sendNextAsync : this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.warn("Envío rechazado para la sesión {}", session.getId());
+            }
+        }
+    }
+
+    private void finishDrain() {
+        draining.set(false);
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private void drain() {
+        try {
+            Pending pending;
+            int sent = 0;
+            while (sent < MAX_MESSAGES_PER_DRAIN && (pending = queue.poll()) != null) {
+                bufferedBytes.addAndGet(-pending.size);
+                if (session.isOpen() && !closing.get()) {
+                    sendStartedAt = System.nanoTime();
+                    try {
+                        session.sendMessage(copyOf(pending.message));
+                    } catch (Exception e) {
+                        failed(e);
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+                pending.complete();
+                sent++;
+            }
+        } finally {
+            finishDrain();
+        }
+    }
+
+    // Un mensaje en vuelo por sesión; el siguiente se pide al completarse el anterior
+    private void sendNextAsync() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            bufferedBytes.addAndGet(-pending.size);
+            if (session.isOpen() && !closing.get()) {
+                break;
+            }
+            pending.complete();
+        }
+        if (pending == null) {
+            finishDrain();
+            return;
+        }
+
+        Pending inFlight = pending;
+        SendHandler completion = result -> {
+            sendStartedAt = 0;
+            inFlight.complete();
+            if (!result.isOK()) {
+                failed(result.getException());
+            }
+            finishDrain();
+        };
+        sendStartedAt = System.nanoTime();
+        try {
+            if (inFlight.message instanceof TextMessage text) {
+                asyncRemote.sendText(text.getPayload(), completion);
+            } else {
+                asyncRemote.sendBinary(((BinaryMessage) inFlight.message).getPayload().duplicate(), completion);
+            }
+        } catch (RuntimeException e) {
+            sendStartedAt = 0;
+            inFlight.complete();
+            failed(e);
+            finishDrain();
+        }
+    }
+
+    // sendMessage no bloquea: si la cola de la sesión está llena la propia sesión se cierra
+    private void sendDirect(Pending pending) {
+        try {
+            if (session.isOpen() && !closing.get()) {
+                session.sendMessage(copyOf(pending.message));
+            }
+        } catch (Exception e) {
+            failed(e);
+        } finally {
+            pending.complete();
+        }
+    }
+
+    private void failed(Throwable error) {
+        if (session.isOpen() && !closing.get()) {
+            listener.sendFailed(this, error);
+        } else {
+            log.debug("Error al enviar a la sesión {}: {}", session.getId(), error.getMessage());
+        }
+    }
+
+    // El contenedor consume el ByteBuffer al enviarlo y el mismo mensaje va a varios destinatarios
+    private static WebSocketMessage<?> copyOf(WebSocketMessage<?> message) {
+        if (message instanceof BinaryMessage binary) {
+            return new BinaryMessage(binary.getPayload().duplicate(), binary.isLast());
+        }
+        return message;
+    }
+}
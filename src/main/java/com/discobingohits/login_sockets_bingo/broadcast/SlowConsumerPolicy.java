@@ -0,0 +1,10 @@
+package com.discobingohits.login_sockets_bingo.broadcast;
+
+public enum SlowConsumerPolicy {
+    // Se descarta el mensaje nuevo y se conserva lo ya encolado
+    DROP_NEWEST,
+    // Se descartan los mensajes más antiguos hasta que el nuevo quepa
+    DROP_OLDEST,
+    // Se cierra la sesión; el cliente debe reconectar y recibir el estado completo
+    DISCONNECT
+}
@@ -0,0 +1,45 @@
+package com.discobingohits.login_sockets_bingo.broadcast;
+
+import com.discobingohits.login_sockets_bingo.netty.NettyWebSocketSession;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.WebSocketServerSockJsSession;
+
+/**
+ * Transporte por el que llegó una sesión, para la métrica de sesiones. Las
+ * conexiones a /socket/ws y a /socket/websocket son WebSocket sin SockJS.
+ */
+public enum SocketTransport {
+    WEBSOCKET("websocket"),
+    SOCKJS_WEBSOCKET("sockjs-websocket"),
+    SOCKJS_STREAMING("sockjs-streaming"),
+    SOCKJS_POLLING("sockjs-polling"),
+    NETTY("netty-websocket");
+
+    private final String tag;
+
+    SocketTransport(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public static SocketTransport of(WebSocketSession session) {
+        if (session instanceof NettyWebSocketSession) {
+            return NETTY;
+        }
+        if (session instanceof WebSocketServerSockJsSession) {
+            return SOCKJS_WEBSOCKET;
+        }
+        if (session instanceof StreamingSockJsSession) {
+            return SOCKJS_STREAMING;
+        }
+        if (session instanceof PollingSockJsSession) {
+            return SOCKJS_POLLING;
+        }
+        return WEBSOCKET;
+    }
+}
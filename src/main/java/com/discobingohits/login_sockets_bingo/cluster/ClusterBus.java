@@ -0,0 +1,15 @@
+package com.discobingohits.login_sockets_bingo.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Transporte entre nodos. Debe entregar en orden los mensajes de un mismo
+ * nodo origen a un mismo nodo destino.
+ */
+public interface ClusterBus {
+    void join(String nodeId, Consumer<ClusterMessage> receiver);
+
+    void leave(String nodeId);
+
+    void send(String targetNode, ClusterMessage message);
+}
@@ -0,0 +1,51 @@
+package com.discobingohits.login_sockets_bingo.cluster;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Mensaje entre nodos:
+ * FORWARD lleva un frame de un cliente (y su username del JWT) al nodo dueño de la sala,
+ * DELIVER lleva un evento ya serializado de vuelta al nodo del cliente y
+ * SESSION_CLOSED avisa al dueño de que una sesión remota se ha cerrado.
+ */
+@Getter
+public final class ClusterMessage {
+    public enum Type { FORWARD, DELIVER, SESSION_CLOSED }
+
+    private final Type type;
+    private final String originNode;
+    private final String sessionId;
+    private final String username;
+    private final List<String> sessionIds;
+    private final String text;
+    private final byte[] binary;
+
+    private ClusterMessage(Type type, String originNode, String sessionId, String username, List<String> sessionIds,
+                           String text, byte[] binary) {
+        this.type = type;
+        this.originNode = originNode;
+        this.sessionId = sessionId;
+        this.username = username;
+        this.sessionIds = sessionIds;
+        this.text = text;
+        this.binary = binary;
+    }
+
+    public static ClusterMessage forward(String originNode, String sessionId, String username, String text) {
+        return new ClusterMessage(Type.FORWARD, originNode, sessionId, username, null, text, null);
+    }
+
+    public static ClusterMessage forward(String originNode, String sessionId, String username, byte[] binary) {
+        return new ClusterMessage(Type.FORWARD, originNode, sessionId, username, null, null, binary);
+    }
+
+    public static ClusterMessage deliver(String originNode, List<String> sessionIds, String json) {
+        return new ClusterMessage(Type.DELIVER, originNode, null, null, sessionIds, json, null);
+    }
+
+    public static ClusterMessage sessionClosed(String originNode, String sessionId) {
+        return new ClusterMessage(Type.SESSION_CLOSED, originNode, sessionId, null, null, null, null);
+    }
+}
@@ -0,0 +1,223 @@
+package com.discobingohits.login_sockets_bingo.cluster;
+
+import com.discobingohits.login_sockets_bingo.broadcast.BroadcastEngine;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
+import com.discobingohits.login_sockets_bingo.protocol.InboundCommand;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundFrame;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import com.discobingohits.login_sockets_bingo.protocol.RawJson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reparte las salas entre nodos por hash consistente del código. Los frames
+ * de un cliente cuya sala vive en otro nodo se reenvían al dueño, que trata
+ * al cliente como la sesión remota "nodo/sesión" y le devuelve los eventos
+ * por el bus. Con el clúster desactivado todas las salas son locales.
+ */
+@Component
+public class ClusterRouter {
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+    private static final char SEPARATOR = '/';
+
+    public interface Listener {
+        void onForwardedCommand(String sessionId, String username, InboundCommand command) throws IOException;
+
+        void onRemoteSessionClosed(String sessionId);
+    }
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final ConsistentHashRing ring;
+    private final ClusterBus bus;
+    private final BroadcastEngine broadcastEngine;
+    private final InboundDecoder inboundDecoder;
+    private final OutboundWriter outboundWriter;
+    // Nodos a los que cada sesión local ha reenviado algo, para avisarles al cerrar
+    private final Map<String, Set<String>> forwardedTo = new ConcurrentHashMap<>();
+    private final Counter forwarded;
+    private final Counter delivered;
+    private volatile Listener listener;
+
+    public ClusterRouter(@Value("${app.cluster.enabled:false}") boolean enabled,
+                         @Value("${app.cluster.node-id:node-1}") String nodeId,
+                         @Value("${app.cluster.nodes:node-1}") List<String> nodes,
+                         @Value("${app.cluster.virtual-nodes:128}") int virtualNodes,
+                         ClusterBus bus,
+                         BroadcastEngine broadcastEngine,
+                         InboundDecoder inboundDecoder,
+                         OutboundWriter outboundWriter,
+                         MeterRegistry meterRegistry) {
+        if (enabled && !nodes.contains(nodeId)) {
+            throw new IllegalStateException("app.cluster.node-id " + nodeId + " no está en app.cluster.nodes " + nodes);
+        }
+        if (nodeId.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalStateException("app.cluster.node-id no puede contener '" + SEPARATOR + "'");
+        }
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.ring = new ConsistentHashRing(enabled ? nodes : List.of(nodeId), virtualNodes);
+        this.bus = bus;
+        this.broadcastEngine = broadcastEngine;
+        this.inboundDecoder = inboundDecoder;
+        this.outboundWriter = outboundWriter;
+        this.forwarded = Counter.builder("bingo.cluster.forwarded")
+                .description("Frames de clientes reenviados al nodo dueño de la sala")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("bingo.cluster.delivered")
+                .description("Eventos enviados a clientes conectados a otro nodo")
+                .register(meterRegistry);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            bus.join(nodeId, this::receive);
+            log.info("Nodo {} unido al clúster {}", nodeId, ring.getNodes());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (enabled) {
+            bus.leave(nodeId);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Por la clave del código, así "abc123" y "ABC123" van al mismo nodo. Un código no válido se trata en local
+    public boolean isLocal(String roomCode) {
+        if (!enabled) {
+            return true;
+        }
+        long key = RoomCodes.key(roomCode);
+        return key <= 0 || nodeId.equals(ring.ownerOf(key));
+    }
+
+    public boolean isRemoteSession(String sessionId) {
+        return enabled && sessionId.indexOf(SEPARATOR) >= 0;
+    }
+
+    // Lado del nodo del cliente
+    public void forward(String roomCode, String sessionId, String username, WebSocketMessage<?> message) {
+        String owner = ring.ownerOf(RoomCodes.key(roomCode));
+        forwardedTo.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(owner);
+        if (message instanceof BinaryMessage binaryMessage) {
+            ByteBuffer payload = binaryMessage.getPayload().duplicate();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            bus.send(owner, ClusterMessage.forward(nodeId, sessionId, username, bytes));
+        } else {
+            bus.send(owner, ClusterMessage.forward(nodeId, sessionId, username, (String) message.getPayload()));
+        }
+        forwarded.increment();
+    }
+
+    public void sessionClosed(String sessionId) {
+        Set<String> owners = forwardedTo.remove(sessionId);
+        if (owners != null) {
+            for (String owner : owners) {
+                bus.send(owner, ClusterMessage.sessionClosed(nodeId, sessionId));
+            }
+        }
+    }
+
+    // Lado del nodo dueño de la sala
+    public void sendTo(String remoteSessionId, OutboundEvent event) throws IOException {
+        int separator = remoteSessionId.indexOf(SEPARATOR);
+        String json = outboundWriter.write(event);
+        bus.send(remoteSessionId.substring(0, separator),
+                ClusterMessage.deliver(nodeId, List.of(remoteSessionId.substring(separator + 1)), json));
+        delivered.increment();
+    }
+
+    // El evento se serializa una vez y cada nodo recibe un único mensaje con todos sus destinatarios
+    public void broadcast(Collection<Player> recipients, OutboundEvent event) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Map<String, List<String>> byNode = null;
+        for (Player player : recipients) {
+            String id = player.getId();
+            int separator = id.indexOf(SEPARATOR);
+            if (separator >= 0) {
+                if (byNode == null) {
+                    byNode = new HashMap<>();
+                }
+                byNode.computeIfAbsent(id.substring(0, separator), node -> new ArrayList<>()).add(id.substring(separator + 1));
+            }
+        }
+        if (byNode == null) {
+            return;
+        }
+        String json = outboundWriter.write(event);
+        for (Map.Entry<String, List<String>> entry : byNode.entrySet()) {
+            bus.send(entry.getKey(), ClusterMessage.deliver(nodeId, entry.getValue(), json));
+            delivered.increment(entry.getValue().size());
+        }
+    }
+
+    private void receive(ClusterMessage message) {
+        try {
+            switch (message.getType()) {
+                case FORWARD -> {
+                    InboundCommand command = message.getBinary() != null
+                            ? inboundDecoder.decode(ByteBuffer.wrap(message.getBinary()))
+                            : inboundDecoder.decode(message.getText());
+                    Listener current = listener;
+                    if (current != null) {
+                        current.onForwardedCommand(message.getOriginNode() + SEPARATOR + message.getSessionId(),
+                                message.getUsername(), command);
+                    }
+                }
+                case DELIVER -> {
+                    OutboundFrame frame = outboundWriter.frame(new RawJson(message.getText()));
+                    for (String sessionId : message.getSessionIds()) {
+                        broadcastEngine.send(sessionId, frame);
+                    }
+                }
+                case SESSION_CLOSED -> {
+                    Listener current = listener;
+                    if (current != null) {
+                        current.onRemoteSessionClosed(message.getOriginNode() + SEPARATOR + message.getSessionId());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error al procesar {} de {}", message.getType(), message.getOriginNode(), e);
+        }
+    }
+}
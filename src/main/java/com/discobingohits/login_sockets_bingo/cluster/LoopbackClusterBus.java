@@ -0,0 +1,67 @@
+package com.discobingohits.login_sockets_bingo.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Bus en memoria compartido por todos los contextos de Spring de la misma JVM,
+ * para levantar varios nodos en una sola máquina. Cada nodo recibe en su
+ * propio hilo, así que el orden por destino se mantiene y quien envía nunca
+ * ejecuta código del receptor.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cluster.bus", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackClusterBus implements ClusterBus {
+    private static final Logger log = LoggerFactory.getLogger(LoopbackClusterBus.class);
+    private static final Map<String, Endpoint> ENDPOINTS = new ConcurrentHashMap<>();
+
+    private static final class Endpoint {
+        final Consumer<ClusterMessage> receiver;
+        final ExecutorService executor;
+
+        Endpoint(String nodeId, Consumer<ClusterMessage> receiver) {
+            this.receiver = receiver;
+            this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("cluster-" + nodeId + "-"));
+        }
+    }
+
+    @Override
+    public void join(String nodeId, Consumer<ClusterMessage> receiver) {
+        Endpoint previous = ENDPOINTS.put(nodeId, new Endpoint(nodeId, receiver));
+        if (previous != null) {
+            previous.executor.shutdown();
+        }
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        Endpoint endpoint = ENDPOINTS.remove(nodeId);
+        if (endpoint != null) {
+            endpoint.executor.shutdown();
+        }
+    }
+
+    @Override
+    public void send(String targetNode, ClusterMessage message) {
+        Endpoint endpoint = ENDPOINTS.get(targetNode);
+        if (endpoint == null) {
+            log.warn("Nodo {} no disponible, se descarta {}", targetNode, message.getType());
+            return;
+        }
+        try {
+            endpoint.executor.execute(() -> endpoint.receiver.accept(message));
+        } catch (RejectedExecutionException e) {
+            log.warn("Nodo {} detenido, se descarta {}", targetNode, message.getType());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.discobingohits.login_sockets_bingo.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+// No se exponen como beans Executor para no sustituir los ejecutores por defecto de Spring (@Scheduled, @Async)
+@Component
+public class SocketExecutors {
+    private static final Logger log = LoggerFactory.getLogger(SocketExecutors.class);
+
+    private final ScheduledExecutorService joinScheduler;
+    private final ScheduledExecutorService roomExpiryScheduler;
+    private final ScheduledExecutorService broadcastTickScheduler;
+    private final ScheduledExecutorService outboundWatchdogScheduler;
+    private final Executor outboundExecutor;
+    private final boolean virtualThreads;
+
+    public SocketExecutors(@Value("${app.socket.join.scheduler-threads:2}") int joinThreads,
+                           @Value("${app.socket.outbound.threads:4}") int outboundThreads,
+                           Environment environment) {
+        this.joinScheduler = Executors.newScheduledThreadPool(joinThreads, new CustomizableThreadFactory("join-queue-"));
+        this.roomExpiryScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("room-expiry-"));
+        this.broadcastTickScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("room-tick-"));
+        // Aparte del scheduler de Spring, que comparten la cola de emails y las reconstrucciones del índice
+        this.outboundWatchdogScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ws-watchdog-"));
+        // Con spring.threads.virtual.enabled (y Java 21+) los envíos bloqueantes van en hilos virtuales
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        if (virtualThreads) {
+            this.outboundExecutor = new VirtualThreadTaskExecutor("ws-send-");
+        } else {
+            if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+                log.warn("spring.threads.virtual.enabled requiere Java 21 o superior; se usan hilos de plataforma");
+            }
+            this.outboundExecutor = Executors.newFixedThreadPool(outboundThreads, new CustomizableThreadFactory("ws-send-"));
+        }
+    }
+
+    public ScheduledExecutorService getJoinScheduler() {
+        return joinScheduler;
+    }
+
+    public ScheduledExecutorService getRoomExpiryScheduler() {
+        return roomExpiryScheduler;
+    }
+
+    public ScheduledExecutorService getBroadcastTickScheduler() {
+        return broadcastTickScheduler;
+    }
+
+    public ScheduledExecutorService getOutboundWatchdogScheduler() {
+        return outboundWatchdogScheduler;
+    }
+
+    public Executor getOutboundExecutor() {
+        return outboundExecutor;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        joinScheduler.shutdownNow();
+        roomExpiryScheduler.shutdownNow();
+        broadcastTickScheduler.shutdownNow();
+        outboundWatchdogScheduler.shutdownNow();
+        if (outboundExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+}
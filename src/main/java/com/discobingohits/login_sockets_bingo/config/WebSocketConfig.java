@@ -1,33 +1,47 @@
 package com.discobingohits.login_sockets_bingo.config;
 
 import com.discobingohits.login_sockets_bingo.handler.GameWebSocketHandler;
+import com.discobingohits.login_sockets_bingo.protocol.CompressionHandshakeHandler;
+import com.discobingohits.login_sockets_bingo.protocol.WireFormatNegotiator;
 import com.discobingohits.login_sockets_bingo.security.WebSocketAuthInterceptor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
+import java.util.List;
+
+// Con app.socket.engine=netty los sockets los atiende NettySocketServer en su propio puerto
 @Configuration
+@ConditionalOnProperty(name = "app.socket.engine", havingValue = "servlet", matchIfMissing = true)
 @EnableWebSocket
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketConfigurer {
+    public static final List<String> ALLOWED_ORIGINS = List.of(
+            "https://www.discohitsbingo.com",
+            "http://localhost:5173"
+    );
+
     private final WebSocketAuthInterceptor authInterceptor;
+    private final WireFormatNegotiator wireFormatNegotiator;
+    private final GameWebSocketHandler gameWebSocketHandler;
+    private final CompressionHandshakeHandler compressionHandshakeHandler;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(gameWebSocketHandler(), "/socket")
-                .addInterceptors(authInterceptor)
-                .setAllowedOrigins(
-                        "https://www.discohitsbingo.com",
-                        "http://localhost:5173"
-                )
-                .withSockJS();
-    }
+        // WebSocket nativo, sin el sobrecoste de SockJS; es el que deben usar los clientes que lo soportan
+        registry.addHandler(gameWebSocketHandler, "/socket/ws")
+                .setHandshakeHandler(compressionHandshakeHandler)
+                .addInterceptors(authInterceptor, wireFormatNegotiator)
+                .setAllowedOrigins(ALLOWED_ORIGINS.toArray(String[]::new));
 
-    @Bean
-    public GameWebSocketHandler gameWebSocketHandler() {
-        return new GameWebSocketHandler();
+        // SockJS como respaldo para redes que no dejan pasar WebSocket
+        registry.addHandler(gameWebSocketHandler, "/socket")
+                .setHandshakeHandler(compressionHandshakeHandler)
+                .addInterceptors(authInterceptor, wireFormatNegotiator)
+                .setAllowedOrigins(ALLOWED_ORIGINS.toArray(String[]::new))
+                .withSockJS();
     }
 }
\ No newline at end of file
@@ -3,11 +3,17 @@ package com.discobingohits.login_sockets_bingo.controller;
 import com.discobingohits.login_sockets_bingo.dto.AuthRequest;
 import com.discobingohits.login_sockets_bingo.dto.AuthResponse;
 import com.discobingohits.login_sockets_bingo.dto.RegisterRequest;
+import com.discobingohits.login_sockets_bingo.security.PasswordHashingBusyException;
 import com.discobingohits.login_sockets_bingo.service.AuthService;
+import com.discobingohits.login_sockets_bingo.service.AvailabilityRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -15,6 +21,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthService authService;
+    private final AvailabilityRateLimiter availabilityRateLimiter;
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
@@ -26,9 +33,41 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    // Para el formulario de registro mientras se escribe; solo consulta la base de datos si el nombre puede estar ocupado
+    @GetMapping("/available")
+    public ResponseEntity<?> available(@RequestParam(required = false) String username,
+                                       @RequestParam(required = false) String email,
+                                       HttpServletRequest request) {
+        // Sin sesión: se limita por cliente para que no sirva para enumerar cuentas. Con
+        // server.forward-headers-strategy la dirección es la del cliente, no la del balanceador
+        if (!availabilityRateLimiter.tryAcquire(request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", "Demasiadas consultas, espera un momento"));
+        }
+        if (username == null && email == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Indica username o email"));
+        }
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", authService.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", authService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok(availability);
+    }
+
     @GetMapping("/verify/{token}")
     public ResponseEntity<?> verifyEmail(@PathVariable String token) {
         authService.verifyEmail(token);
         return ResponseEntity.ok().body(Map.of("message", "Email verificado correctamente"));
     }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<?> handleHashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(Map.of("message", e.getMessage()));
+    }
 }
@@ -1,224 +1,394 @@
 package com.discobingohits.login_sockets_bingo.handler;
 
+import com.discobingohits.login_sockets_bingo.broadcast.BroadcastEngine;
+import com.discobingohits.login_sockets_bingo.cluster.ClusterRouter;
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.journal.RoomJournal;
 import com.discobingohits.login_sockets_bingo.model.GameConfig;
 import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
 import com.discobingohits.login_sockets_bingo.model.GameState;
 import com.discobingohits.login_sockets_bingo.model.Player;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.scheduling.annotation.Scheduled;
+import com.discobingohits.login_sockets_bingo.protocol.InboundCommand;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.InboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import com.discobingohits.login_sockets_bingo.protocol.RawJson;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Component
-public class GameWebSocketHandler extends TextWebSocketHandler {
+public class GameWebSocketHandler extends AbstractWebSocketHandler implements ClusterRouter.Listener {
     private static final Logger log = LoggerFactory.getLogger(GameWebSocketHandler.class);
-    private final Map<String, GameRoom> gameRooms = new ConcurrentHashMap<>();
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final ConnectionQueue connectionQueue = new ConnectionQueue();
-
-    private class ConnectionQueue {
-        private final Map<String, List<QueueEntry>> queues = new ConcurrentHashMap<>();
-
-        private class QueueEntry {
-            final JsonNode playerData;
-            final WebSocketSession session;
-
-            QueueEntry(JsonNode playerData, WebSocketSession session) {
-                this.playerData = playerData;
-                this.session = session;
+    private static final int MAX_CODE_ATTEMPTS = 256;
+    private static final String USERNAME_ATTRIBUTE = "username";
+    private final RoomRegistry roomRegistry = new RoomRegistry();
+    private final BroadcastEngine broadcastEngine;
+    private final InboundDecoder inboundDecoder;
+    private final OutboundWriter outboundWriter;
+    private final JoinQueue joinQueue;
+    private final RoomExpiry roomExpiry;
+    private final ClusterRouter clusterRouter;
+    private final RoomJournal roomJournal;
+    private final InboundRateLimiter rateLimiter;
+    private final RateLimitPolicy rateLimitPolicy;
+    // null si la agrupación por tick está desactivada
+    private final RoomBroadcastCoalescer coalescer;
+    private final Map<InboundEvent, Timer> eventTimers = new EnumMap<>(InboundEvent.class);
+
+    public GameWebSocketHandler(BroadcastEngine broadcastEngine,
+                                InboundDecoder inboundDecoder,
+                                OutboundWriter outboundWriter,
+                                ClusterRouter clusterRouter,
+                                RoomJournal roomJournal,
+                                SocketExecutors socketExecutors,
+                                @Value("${app.socket.join.admission-delay-ms:500}") long admissionDelayMs,
+                                @Value("${app.room.idle-ttl-seconds:1800}") long idleTtlSeconds,
+                                @Value("${app.room.hard-ttl-seconds:21600}") long hardTtlSeconds,
+                                @Value("${app.room.empty-grace-seconds:600}") long emptyGraceSeconds,
+                                @Value("${app.socket.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                                @Value("${app.socket.rate-limit.session:*:20/40}") String sessionRateLimits,
+                                @Value("${app.socket.rate-limit.room:*:50/100}") String roomRateLimits,
+                                @Value("${app.socket.rate-limit.policy:DROP}") RateLimitPolicy rateLimitPolicy,
+                                @Value("${app.socket.coalesce.enabled:false}") boolean coalesceEnabled,
+                                @Value("${app.socket.coalesce.tick-ms:50}") long coalesceTickMs,
+                                @Value("${app.socket.coalesce.bypass:songRevealed,gameWinner,hostDisconnected}") Set<String> coalesceBypass,
+                                MeterRegistry meterRegistry) {
+        this.broadcastEngine = broadcastEngine;
+        this.inboundDecoder = inboundDecoder;
+        this.outboundWriter = outboundWriter;
+        this.joinQueue = new JoinQueue(socketExecutors.getJoinScheduler(), admissionDelayMs, this::admitPlayer, meterRegistry);
+        this.roomExpiry = new RoomExpiry(socketExecutors.getRoomExpiryScheduler(),
+                TimeUnit.SECONDS.toMillis(idleTtlSeconds),
+                TimeUnit.SECONDS.toMillis(hardTtlSeconds),
+                TimeUnit.SECONDS.toMillis(emptyGraceSeconds),
+                room -> roomRegistry.get(room.getCode()) == room,
+                this::expireRoom,
+                meterRegistry);
+        this.clusterRouter = clusterRouter;
+        clusterRouter.setListener(this);
+        this.roomJournal = roomJournal;
+        this.rateLimiter = new InboundRateLimiter(rateLimitEnabled, sessionRateLimits, roomRateLimits, meterRegistry);
+        this.rateLimitPolicy = rateLimitPolicy;
+        this.coalescer = coalesceEnabled
+                ? new RoomBroadcastCoalescer(socketExecutors.getBroadcastTickScheduler(), coalesceTickMs, coalesceBypass,
+                        this::sendBroadcast, meterRegistry)
+                : null;
+        // Una etiqueta por tipo de evento conocido: la cardinalidad está acotada por el enum
+        for (InboundEvent event : InboundEvent.values()) {
+            eventTimers.put(event, Timer.builder("bingo.socket.event")
+                    .description("Tiempo de proceso de cada evento recibido")
+                    .tag("event", event.getEventName())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        Gauge.builder("bingo.rooms.active", roomRegistry, RoomRegistry::size)
+                .description("Salas activas en este nodo")
+                .register(meterRegistry);
+        // Salas recuperadas del journal: los jugadores vuelven por la ruta de reconexión, y
+        // los que no lo hacen dentro del margen de sala vacía se descartan
+        List<GameRoom> recovered = new ArrayList<>();
+        for (GameRoom room : roomJournal.drainRecoveredRooms()) {
+            room.setEmptySince(System.currentTimeMillis());
+            for (Player player : room.getPlayers()) {
+                player.setUnclaimed(!player.getId().equals(room.getHost()));
+            }
+            if (roomRegistry.registerIfAbsent(room)) {
+                roomExpiry.schedule(room);
+                recovered.add(room);
             }
         }
-
-        public void enqueue(String roomCode, JsonNode playerData, WebSocketSession session) throws IOException {
-            queues.computeIfAbsent(roomCode, k -> new ArrayList<>())
-                    .add(new QueueEntry(playerData, session));
-            processQueue(roomCode);
+        if (!recovered.isEmpty()) {
+            socketExecutors.getRoomExpiryScheduler().schedule(() -> dropUnclaimedPlayers(recovered),
+                    emptyGraceSeconds, TimeUnit.SECONDS);
         }
+    }
 
-        private void processQueue(String roomCode) throws IOException {
-            List<QueueEntry> queue = queues.get(roomCode);
-            if (queue == null || queue.isEmpty()) return;
-
-            GameRoom room = gameRooms.get(roomCode);
-            if (room == null) {
-                queues.remove(roomCode);
-                return;
+    // Sin esto los jugadores de antes del reinicio ocuparían plazas para siempre
+    private void dropUnclaimedPlayers(List<GameRoom> rooms) {
+        for (GameRoom room : rooms) {
+            if (roomRegistry.get(room.getCode()) != room) {
+                continue;
             }
-
-            while (!queue.isEmpty() && room.getPlayers().size() < room.getConfig().getMaxPlayers()) {
-                QueueEntry entry = queue.remove(0);
-                try {
-                    Thread.sleep(500); // Delay entre conexiones
-                    String playerName = entry.playerData.get("name").asText();
-                    WebSocketSession playerSession = entry.session;
-                    String sessionId = playerSession.getId();
-                    String messageId = entry.playerData.has("messageId") ?
-                            entry.playerData.get("messageId").asText() : null;
-
-                    Player existingPlayer = findExistingPlayer(room, playerName, sessionId);
-                    boolean isReconnecting = false;
-
-                    if (existingPlayer != null) {
-                        isReconnecting = true;
-                        existingPlayer.setId(sessionId);
-                        existingPlayer.setReconnected(true);
-                        existingPlayer.setReady(room.getPhase().equals("playing"));
-                    } else {
-                        room.getPlayers().add(new Player(
-                                sessionId,
-                                playerName,
-                                false,
-                                false,
-                                new Date()
-                        ));
+            try {
+                synchronized (room) {
+                    int dropped = 0;
+                    for (Player player : room.getPlayers()) {
+                        if (!player.isUnclaimed()) {
+                            continue;
+                        }
+                        long rosterVersion = roomRegistry.removePlayer(room, player.getId());
+                        if (rosterVersion >= 0) {
+                            dropped++;
+                            broadcastToRoom(room.getCode(), OutboundEvents.RosterDelta.removed(player.getId(), rosterVersion));
+                        }
                     }
-
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("event", "roomJoined");
-                    response.put("roomCode", roomCode);
-                    response.put("players", room.getPlayers());
-                    response.put("config", room.getConfig());
-                    response.put("phase", room.getPhase());
-                    response.put("currentCategory", room.getCurrentCategory());
-                    response.put("gameState", room.getGameState());
-                    response.put("isReconnecting", isReconnecting);
-                    if (messageId != null) {
-                        response.put("messageId", messageId);
+                    if (dropped == 0) {
+                        continue;
+                    }
+                    roomJournal.roomChanged(room);
+                    if (room.getPlayers().size() <= 1 && room.getEmptySince() == 0) {
+                        room.setEmptySince(System.currentTimeMillis());
+                        roomExpiry.deadlineChanged(room);
                     }
+                    log.info("Sala {}: {} jugadores restaurados no han vuelto y se descartan", room.getCode(), dropped);
+                }
+            } catch (Exception e) {
+                log.error("Error al descartar los jugadores restaurados de la sala {}", room.getCode(), e);
+            }
+        }
+    }
 
-                    playerSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+    private void admitPlayer(String roomCode, JoinQueue.Entry entry) throws IOException {
+        String sessionId = entry.sessionId;
+        GameRoom room = roomRegistry.get(roomCode);
 
-                    broadcastToRoom(roomCode, Map.of(
-                            "event", "playersUpdate",
-                            "players", room.getPlayers()
-                    ));
+        if (room == null) {
+            sendError(sessionId, "Sala no encontrada", "ROOM_NOT_FOUND", entry.messageId);
+            return;
+        }
 
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.error("Error en delay de cola", e);
-                }
+        leavePreviousRoom(sessionId, room.getCode());
+
+        synchronized (room) {
+            Player existingPlayer = findExistingPlayer(room, entry.playerName, sessionId);
+            boolean isReconnecting = existingPlayer != null;
+            OutboundEvents.RosterDelta delta;
+
+            if (isReconnecting) {
+                String previousId = existingPlayer.getId();
+                existingPlayer.setUnclaimed(false);
+                existingPlayer.setReconnected(true);
+                existingPlayer.setReady(room.getPhase().equals("playing"));
+                long rosterVersion = roomRegistry.rebindPlayer(room, existingPlayer, sessionId);
+                delta = OutboundEvents.RosterDelta.changed(existingPlayer, previousId, rosterVersion, null);
+            } else if (room.getPlayers().size() >= room.getConfig().getMaxPlayers()) {
+                sendError(sessionId, "Sala llena", "ROOM_FULL", entry.messageId);
+                return;
+            } else {
+                Player player = new Player(
+                        sessionId,
+                        entry.playerName,
+                        false,
+                        false,
+                        new Date()
+                );
+                delta = OutboundEvents.RosterDelta.added(player, roomRegistry.addPlayer(room, player));
+            }
+            // Sin host la sala sigue contando como vacía hasta que vuelva
+            if (!room.isAwaitingHost()) {
+                room.setEmptySince(0);
             }
+            roomExpiry.touch(room);
+            roomJournal.roomChanged(room);
+
+            sendTo(sessionId, new OutboundEvents.RoomJoined(
+                    room.getCode(),
+                    room.getPlayers(),
+                    room.getRosterVersion(),
+                    outboundWriter.encodedConfig(room),
+                    room.getPhase(),
+                    room.getCurrentCategory(),
+                    outboundWriter.encodedGameState(room),
+                    isReconnecting,
+                    entry.messageId
+            ));
+            broadcastToRoom(room.getCode(), delta);
         }
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         String sessionId = session.getId();
-        sessions.put(sessionId, session);
+        broadcastEngine.register(session);
+        rateLimiter.sessionOpened(sessionId);
         log.info("Cliente conectado: {}", sessionId);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        JsonNode jsonNode = objectMapper.readTree(message.getPayload());
-        String event = jsonNode.get("event").asText();
-        JsonNode data = jsonNode.get("data");
-
-        switch (event) {
-            case "checkRoom":
-                handleCheckRoom(session, data);
-                break;
-            case "createRoom":
-                handleCreateRoom(session, data);
-                break;
-            case "joinRoom":
-                handleJoinRoom(session, data);
-                break;
-            case "playerReady":
-                handlePlayerReady(session, data);
-                break;
-            case "startGame":
-                handleStartGame(session, data);
-                break;
-            case "selectCategory":
-                handleSelectCategory(session, data);
-                break;
-            case "revealSong":
-                handleRevealSong(session, data);
-                break;
-            case "enableMarking":
-                handleMarkingChange(session, data, true);
-                break;
-            case "disableMarking":
-                handleMarkingChange(session, data, false);
-                break;
-            case "winner":
-                handleWinner(session, data);
-                break;
-        }
-    }
-
-    private void handleCheckRoom(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("event", "roomStatus");
-        response.put("exists", room != null);
-
-        if (messageId != null) {
-            response.put("messageId", messageId);
+        route(session, inboundDecoder.decode(message.getPayload()), message);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        route(session, inboundDecoder.decode(message.getPayload()), message);
+    }
+
+    // En modo clúster, los comandos de salas de otro nodo se reenvían tal cual llegaron
+    private void route(WebSocketSession session, InboundCommand command, WebSocketMessage<?> message) throws IOException {
+        if (command.getEvent() == null) {
+            return;
+        }
+        if (!rateLimiter.allowSession(session.getId(), command.getEvent())) {
+            if (rateLimitPolicy == RateLimitPolicy.DISCONNECT) {
+                log.warn("Sesión {} cerrada por exceso de eventos {}", session.getId(), command.getEvent().getEventName());
+                broadcastEngine.close(session.getId(), CloseStatus.POLICY_VIOLATION);
+            }
+            return;
         }
+        String roomCode = command.getEvent() == InboundEvent.CREATE_ROOM ? command.getRequestedRoomCode() : command.getRoomCode();
+        if (roomCode != null && !clusterRouter.isLocal(roomCode)) {
+            clusterRouter.forward(roomCode, session.getId(), username(session), message);
+            return;
+        }
+        dispatch(session.getId(), username(session), command);
+    }
 
-        if (room != null) {
-            response.put("phase", room.getPhase());
-            response.put("playerCount", room.getPlayers().size());
-            response.put("maxPlayers", room.getConfig().getMaxPlayers());
+    private static String username(WebSocketSession session) {
+        Object username = session.getAttributes().get(USERNAME_ATTRIBUTE);
+        return username instanceof String value ? value : null;
+    }
+
+    // username es el del JWT de la sesión; null si no se conoce
+    private void dispatch(String sessionId, String username, InboundCommand command) throws IOException {
+        if (command.getEvent() == null) {
+            return;
+        }
+        Timer timer = eventTimers.get(command.getEvent());
+        long startedAt = System.nanoTime();
+        try {
+            handle(sessionId, username, command);
+        } finally {
+            timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void handle(String sessionId, String username, InboundCommand command) throws IOException {
+        if (command.getRoomCode() != null) {
+            GameRoom room = roomRegistry.get(command.getRoomCode());
+            if (room != null) {
+                // El límite por sala se aplica en el nodo dueño, sumando a todos sus jugadores
+                if (!rateLimiter.allowRoom(room, command.getEvent())) {
+                    return;
+                }
+                roomExpiry.touch(room);
+            }
         }
 
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+        switch (command.getEvent()) {
+            case CHECK_ROOM -> handleCheckRoom(sessionId, command);
+            case CREATE_ROOM -> handleCreateRoom(sessionId, username, command);
+            case JOIN_ROOM -> handleJoinRoom(sessionId, command);
+            case PLAYER_READY -> handlePlayerReady(sessionId, command);
+            case SYNC_ROSTER -> handleSyncRoster(sessionId, command);
+            case START_GAME -> handleStartGame(sessionId, command);
+            case SELECT_CATEGORY -> handleSelectCategory(sessionId, command);
+            case REVEAL_SONG -> handleRevealSong(sessionId, command);
+            case ENABLE_MARKING -> handleMarkingChange(sessionId, command, true);
+            case DISABLE_MARKING -> handleMarkingChange(sessionId, command, false);
+            case WINNER -> handleWinner(sessionId, command);
+        }
+    }
+
+    private void handleCheckRoom(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
+
+        if (room == null) {
+            sendTo(sessionId, new OutboundEvents.RoomStatus(false, null, null, null, messageId));
+            return;
+        }
+
+        sendTo(sessionId, new OutboundEvents.RoomStatus(
+                true,
+                room.getPhase(),
+                room.getPlayers().size(),
+                room.getConfig().getMaxPlayers(),
+                messageId
+        ));
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         String sessionId = session.getId();
-        sessions.remove(sessionId);
+        broadcastEngine.unregister(sessionId);
+        rateLimiter.sessionClosed(sessionId);
+        clusterRouter.sessionClosed(sessionId);
+        sessionClosed(sessionId);
+    }
+
+    @Override
+    public void onForwardedCommand(String sessionId, String username, InboundCommand command) throws IOException {
+        dispatch(sessionId, username, command);
+    }
 
-        for (Map.Entry<String, GameRoom> entry : gameRooms.entrySet()) {
-            GameRoom room = entry.getValue();
-            String roomCode = entry.getKey();
+    @Override
+    public void onRemoteSessionClosed(String sessionId) {
+        sessionClosed(sessionId);
+    }
 
-            if (sessionId.equals(room.getHost())) {
-                handleHostDisconnect(roomCode);
-            } else {
+    private void sessionClosed(String sessionId) {
+
+        String hostedRoom = roomRegistry.roomHostedBy(sessionId);
+        if (hostedRoom != null) {
+            handleHostDisconnect(hostedRoom);
+        }
+
+        String joinedRoom = roomRegistry.roomOfSession(sessionId);
+        if (joinedRoom != null) {
+            GameRoom room = roomRegistry.get(joinedRoom);
+            if (room != null) {
                 handlePlayerDisconnect(room, sessionId);
             }
         }
     }
 
-    @Scheduled(fixedRate = 300000) // Cada 5 minutos
-    public void cleanupInactiveRooms() {
-        long now = System.currentTimeMillis();
-        gameRooms.entrySet().removeIf(entry -> {
-            GameRoom room = entry.getValue();
-            long inactiveTime = now - room.getCreatedAt().getTime();
-            boolean shouldRemove = inactiveTime > 3600000; // 1 hora
+    // Aviso final antes de quitar la sala, como con hostDisconnected
+    private void expireRoom(GameRoom room, RoomExpiry.Reason reason) {
+        try {
+            broadcastToRoom(room.getCode(), new OutboundEvents.Notice("roomExpired", null));
+        } catch (IOException e) {
+            log.error("Error al avisar de la caducidad de la sala {}", room.getCode(), e);
+        }
+        removeRoom(room.getCode());
+        log.info("Sala {} eliminada por caducidad ({})", room.getCode(), reason);
+    }
+
+    private void removeRoom(String roomCode) {
+        roomRegistry.remove(roomCode);
+        joinQueue.removeRoom(roomCode);
+        rateLimiter.roomRemoved(roomCode);
+        if (coalescer != null) {
+            coalescer.roomRemoved(roomCode);
+        }
+        roomJournal.roomRemoved(roomCode);
+    }
 
-            if (shouldRemove) {
-                log.info("Sala {} eliminada por inactividad", entry.getKey());
-            }
-            return shouldRemove;
-        });
+    // Una sesión solo puede ocupar una sala como jugador; al entrar en otra sale de la anterior
+    private void leavePreviousRoom(String sessionId, String roomCode) {
+        String previousCode = roomRegistry.roomOfSession(sessionId);
+        if (previousCode == null || previousCode.equals(roomCode) || previousCode.equals(roomRegistry.roomHostedBy(sessionId))) {
+            return;
+        }
+        GameRoom previousRoom = roomRegistry.get(previousCode);
+        if (previousRoom != null) {
+            handlePlayerDisconnect(previousRoom, sessionId);
+        }
     }
 
     private void handleHostDisconnect(String roomCode) {
         try {
-            broadcastToRoom(roomCode, Map.of(
-                    "event", "hostDisconnected"
-            ));
-            gameRooms.remove(roomCode);
+            broadcastToRoom(roomCode, new OutboundEvents.Notice("hostDisconnected", null));
+            removeRoom(roomCode);
             log.info("Sala {} eliminada por desconexión del host", roomCode);
         } catch (IOException e) {
             log.error("Error al manejar desconexión del host", e);
@@ -227,13 +397,20 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     private void handlePlayerDisconnect(GameRoom room, String sessionId) {
         try {
-            room.getPlayers().removeIf(p -> p.getId().equals(sessionId));
+            synchronized (room) {
+                long rosterVersion = roomRegistry.removePlayer(room, sessionId);
+                if (rosterVersion < 0) {
+                    return;
+                }
+                roomJournal.roomChanged(room);
+                if (room.getPlayers().size() <= 1) {
+                    room.setEmptySince(System.currentTimeMillis());
+                    roomExpiry.deadlineChanged(room);
+                }
 
-            if (!room.getPlayers().isEmpty()) {
-                broadcastToRoom(room.getCode(), Map.of(
-                        "event", "playersUpdate",
-                        "players", room.getPlayers()
-                ));
+                if (!room.getPlayers().isEmpty()) {
+                    broadcastToRoom(room.getCode(), OutboundEvents.RosterDelta.removed(sessionId, rosterVersion));
+                }
             }
 
             log.info("Jugador {} eliminado de la sala {}", sessionId, room.getCode());
@@ -242,79 +419,139 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void handleCreateRoom(WebSocketSession session, JsonNode data) throws IOException {
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        JsonNode configNode = data.has("config") ? data.get("config") : data;
+    private void handleCreateRoom(String sessionId, String username, InboundCommand command) throws IOException {
+        String messageId = command.getMessageId();
 
         try {
-            // Verificar si el host ya tiene una sala
-            Optional<Map.Entry<String, GameRoom>> existingRoom = gameRooms.entrySet().stream()
-                    .filter(entry -> entry.getValue().getHost().equals(session.getId()))
-                    .findFirst();
-
-            // Si existe una sala, la eliminamos
-            existingRoom.ifPresent(entry -> {
-                gameRooms.remove(entry.getKey());
-                log.info("Sala anterior {} eliminada para host {}", entry.getKey(), session.getId());
-            });
+            // Si el host ya tiene una sala, la eliminamos
+            String existingRoom = roomRegistry.roomHostedBy(sessionId);
+            if (existingRoom != null) {
+                removeRoom(existingRoom);
+                log.info("Sala anterior {} eliminada para host {}", existingRoom, sessionId);
+            }
 
-            // Obtener código de sala
-            String roomCode = configNode.has("roomCode") ?
-                    configNode.get("roomCode").asText() :
-                    generateRoomCode();
+            // Una sala restaurada tras un reinicio se devuelve a su host en lugar de recrearla.
+            // El id de sesión cambia al reconectar, así que el host se reconoce por su username;
+            // cualquier otro recibe el error de código en uso
+            GameRoom restoredRoom = command.getRequestedRoomCode() != null ?
+                    roomRegistry.get(command.getRequestedRoomCode()) : null;
+            if (restoredRoom != null && restoredRoom.isAwaitingHost()
+                    && username != null && username.equals(restoredRoom.getHostUsername())) {
+                reclaimRoom(sessionId, restoredRoom, messageId);
+                return;
+            }
 
             // Crear nueva sala
-            GameConfig config = objectMapper.treeToValue(configNode, GameConfig.class);
-            GameRoom room = new GameRoom(session.getId(), config);
-            room.setCode(roomCode);
+            GameConfig config = command.toGameConfig();
+            GameRoom room = new GameRoom(sessionId, config);
+            room.setHostUsername(username);
 
             room.getPlayers().add(new Player(
-                    session.getId(),
+                    sessionId,
                     "Game Master",
                     true,
                     true,
                     new Date()
             ));
 
-            gameRooms.put(roomCode, room);
-            log.info("Nueva sala creada: {}", roomCode);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("event", "roomCreated");
-            response.put("roomCode", roomCode);
-            response.put("players", room.getPlayers());
-            response.put("config", room.getConfig());
-            if (messageId != null) {
-                response.put("messageId", messageId);
+            // Código pedido por el cliente o uno nuevo; nunca se pisa una sala existente
+            String requestedCode = command.getRequestedRoomCode();
+            if (requestedCode != null) {
+                if (RoomCodes.key(requestedCode) < 0) {
+                    sendError(sessionId, "Código de sala no válido", "INVALID_ROOM_CODE", messageId);
+                    return;
+                }
+                // En mayúsculas como los generados: es la forma con la que se indexa todo lo demás
+                room.setCode(requestedCode.toUpperCase(Locale.ROOT));
+                if (!registerRoom(room)) {
+                    sendError(sessionId, "El código de sala ya está en uso", "ROOM_CODE_IN_USE", messageId);
+                    return;
+                }
+            } else {
+                allocateRoomCode(room);
             }
-
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+            roomExpiry.schedule(room);
+            log.info("Nueva sala creada: {}", room.getCode());
+
+            sendTo(sessionId, new OutboundEvents.RoomCreated(
+                    room.getCode(),
+                    room.getPlayers(),
+                    outboundWriter.encodedConfig(room),
+                    messageId
+            ));
         } catch (Exception e) {
             log.error("Error al crear sala: {}", e.getMessage());
-            sendError(session, "Error al crear sala: " + e.getMessage(), "ROOM_CREATION_ERROR", messageId);
+            sendError(sessionId, "Error al crear sala: " + e.getMessage(), "ROOM_CREATION_ERROR", messageId);
         }
     }
 
-    private String generateRoomCode() {
-        return Long.toString(Math.abs(System.nanoTime()), 36).substring(0, 6).toUpperCase();
+    private void reclaimRoom(String sessionId, GameRoom room, String messageId) throws IOException {
+        synchronized (room) {
+            String previousHost = room.getHost();
+            long rosterVersion = roomRegistry.rebindHost(room, sessionId);
+            room.setAwaitingHost(false);
+            // Con el host de vuelta el reloj de sala vacía solo sigue si no queda nadie más
+            if (room.getPlayers().size() > 1) {
+                room.setEmptySince(0);
+            }
+            roomJournal.roomChanged(room);
+
+            sendTo(sessionId, new OutboundEvents.RoomCreated(
+                    room.getCode(),
+                    room.getPlayers(),
+                    outboundWriter.encodedConfig(room),
+                    messageId
+            ));
+            Player host = room.getPlayers().stream()
+                    .filter(p -> p.getId().equals(sessionId))
+                    .findFirst()
+                    .orElse(null);
+            if (host != null) {
+                broadcastToRoom(room.getCode(), OutboundEvents.RosterDelta.changed(host, previousHost, rosterVersion, null));
+            }
+        }
+        log.info("Sala {} restaurada y devuelta a su host", room.getCode());
     }
 
-    private void handleJoinRoom(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    // emptySince se queda a 0: el plazo de sala vacía empieza cuando alguien se va, no al crearla
+    private boolean registerRoom(GameRoom room) {
+        synchronized (room) {
+            if (!roomRegistry.registerIfAbsent(room)) {
+                return false;
+            }
+            roomJournal.roomChanged(room);
+            return true;
+        }
+    }
 
-        if (room == null) {
-            sendError(session, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
-            return;
+    // Con 2^30 códigos posibles casi siempre basta el primer intento.
+    // En modo clúster solo vale un código cuyo dueño sea este nodo.
+    private void allocateRoomCode(GameRoom room) {
+        for (int attempt = 0; attempt < MAX_CODE_ATTEMPTS; attempt++) {
+            String code = RoomCodes.random();
+            if (!clusterRouter.isLocal(code)) {
+                continue;
+            }
+            room.setCode(code);
+            if (registerRoom(room)) {
+                return;
+            }
         }
+        throw new IllegalStateException("No se ha encontrado un código de sala libre");
+    }
+
+    private void handleJoinRoom(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
-        if (room.getPlayers().size() >= room.getConfig().getMaxPlayers()) {
-            sendError(session, "Sala llena", "ROOM_FULL", messageId);
+        if (room == null) {
+            sendError(sessionId, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
             return;
         }
 
-        connectionQueue.enqueue(roomCode, data, session);
+        // La capacidad se comprueba al admitir: quien reconecta recupera su plaza aunque la sala esté llena
+        joinQueue.enqueue(room.getCode(), new JoinQueue.Entry(sessionId, command.getName(), messageId));
     }
 
     private Player findExistingPlayer(GameRoom room, String name, String id) {
@@ -324,182 +561,183 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
                 .orElse(null);
     }
 
-    private void handlePlayerReady(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    private void handlePlayerReady(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
         if (room == null) {
-            sendError(session, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
+            sendError(sessionId, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
             return;
         }
 
         Player player = room.getPlayers().stream()
-                .filter(p -> p.getId().equals(session.getId()))
+                .filter(p -> p.getId().equals(sessionId))
                 .findFirst()
                 .orElse(null);
 
         if (player != null) {
-            player.setReady(true);
-            Map<String, Object> response = new HashMap<>();
-            response.put("event", "playersUpdate");
-            response.put("players", room.getPlayers());
-            if (messageId != null) {
-                response.put("messageId", messageId);
+            synchronized (room) {
+                player.setReady(true);
+                roomJournal.roomChanged(room);
+                broadcastToRoom(room.getCode(), OutboundEvents.RosterDelta.changed(player, null, room.nextRosterVersion(), messageId));
             }
-            broadcastToRoom(roomCode, response);
         } else {
-            sendError(session, "Jugador no encontrado en la sala", "PLAYER_NOT_FOUND", messageId);
+            sendError(sessionId, "Jugador no encontrado en la sala", "PLAYER_NOT_FOUND", messageId);
         }
     }
 
-    private void sendError(WebSocketSession session, String message) throws IOException {
-        sendError(session, message, null, null);
-    }
+    // El cliente pide la lista completa cuando detecta un salto en rosterVersion
+    private void handleSyncRoster(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
-    private void sendError(WebSocketSession session, String message, String code, String messageId) throws IOException {
-        Map<String, Object> error = new HashMap<>();
-        error.put("event", "error");
-        error.put("message", message);
-        if (code != null) {
-            error.put("code", code);
+        if (room == null) {
+            sendError(sessionId, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
+            return;
         }
-        if (messageId != null) {
-            error.put("messageId", messageId);
+
+        synchronized (room) {
+            sendTo(sessionId, new OutboundEvents.PlayersUpdate(room.getPlayers(), room.getRosterVersion(), messageId));
         }
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(error)));
     }
 
-    private void handleStartGame(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        String difficulty = data.get("difficulty").asText();
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    private void sendError(String sessionId, String message) throws IOException {
+        sendError(sessionId, message, null, null);
+    }
+
+    private void sendError(String sessionId, String message, String code, String messageId) throws IOException {
+        sendTo(sessionId, new OutboundEvents.ErrorMessage(message, code, messageId));
+    }
+
+    private void handleStartGame(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String difficulty = command.getDifficulty();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
-        if (room == null || !session.getId().equals(room.getHost())) {
-            sendError(session, "No autorizado", "UNAUTHORIZED", messageId);
+        if (room == null || !sessionId.equals(room.getHost())) {
+            sendError(sessionId, "No autorizado", "UNAUTHORIZED", messageId);
             return;
         }
 
-        // Asegurarse de que todos los jugadores mantengan su estado ready
-        room.getPlayers().forEach(player -> {
-            player.setReady(true);
-            player.setPhase("playing");
-        });
-
-        room.setPhase("playing");
-        room.getConfig().setDifficulty(difficulty);
-        room.setGameState(new GameState(difficulty, new Date(), 0));
+        synchronized (room) {
+            // Asegurarse de que todos los jugadores mantengan su estado ready
+            room.getPlayers().forEach(player -> {
+                player.setReady(true);
+                player.setPhase("playing");
+            });
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("event", "gameStarted");
-        response.put("difficulty", difficulty);
-        response.put("players", room.getPlayers());
-        response.put("gameState", room.getGameState());
-        response.put("phase", "playing");
-        if (messageId != null) {
-            response.put("messageId", messageId);
+            room.setPhase("playing");
+            room.getConfig().setDifficulty(difficulty);
+            room.configChanged();
+            room.setGameState(new GameState(difficulty, new Date(), 0));
+            roomJournal.roomChanged(room);
+
+            broadcastToRoom(room.getCode(), new OutboundEvents.GameStarted(
+                    difficulty,
+                    room.getPlayers(),
+                    room.nextRosterVersion(),
+                    outboundWriter.encodedGameState(room),
+                    "playing",
+                    messageId
+            ));
         }
-
-        broadcastToRoom(roomCode, response);
     }
 
-    private void handleSelectCategory(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        JsonNode categoryNode = data.get("category");
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    private void handleSelectCategory(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String category = command.getCategory();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
-        if (room == null || !session.getId().equals(room.getHost())) {
-            sendError(session, "No autorizado", "UNAUTHORIZED", messageId);
+        if (room == null || !sessionId.equals(room.getHost())) {
+            sendError(sessionId, "No autorizado", "UNAUTHORIZED", messageId);
             return;
         }
 
-        room.setCurrentCategory(categoryNode.toString());
-        room.setPhase("category");
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("event", "categorySelected");
-        response.put("category", categoryNode);
-        if (messageId != null) {
-            response.put("messageId", messageId);
+        synchronized (room) {
+            room.setCurrentCategory(category);
+            room.setPhase("category");
+            roomJournal.roomChanged(room);
         }
 
-        broadcastToRoom(roomCode, response);
+        broadcastToRoom(room.getCode(), new OutboundEvents.CategorySelected(rawJson(category), messageId));
     }
 
-    private void handleRevealSong(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        JsonNode songData = data.get("songData");
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    private void handleRevealSong(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String songData = command.getSongData();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
-        if (room == null || !session.getId().equals(room.getHost())) {
-            sendError(session, "No autorizado", "UNAUTHORIZED", messageId);
+        if (room == null || !sessionId.equals(room.getHost())) {
+            sendError(sessionId, "No autorizado", "UNAUTHORIZED", messageId);
             return;
         }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("event", "songRevealed");
-        response.put("songData", songData);
-        if (messageId != null) {
-            response.put("messageId", messageId);
-        }
-
-        broadcastToRoom(roomCode, response);
+        broadcastToRoom(room.getCode(), new OutboundEvents.SongRevealed(rawJson(songData), messageId));
     }
 
-    private void handleMarkingChange(WebSocketSession session, JsonNode data, boolean enable) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    private void handleMarkingChange(String sessionId, InboundCommand command, boolean enable) throws IOException {
+        String roomCode = command.getRoomCode();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
-        if (room == null || !session.getId().equals(room.getHost())) {
-            sendError(session, "No autorizado", "UNAUTHORIZED", messageId);
+        if (room == null || !sessionId.equals(room.getHost())) {
+            sendError(sessionId, "No autorizado", "UNAUTHORIZED", messageId);
             return;
         }
 
-        room.setPhase(enable ? "marking" : "waiting");
-        Map<String, Object> response = new HashMap<>();
-        response.put("event", enable ? "markingEnabled" : "markingDisabled");
-        if (messageId != null) {
-            response.put("messageId", messageId);
+        synchronized (room) {
+            room.setPhase(enable ? "marking" : "waiting");
+            roomJournal.roomChanged(room);
         }
-
-        broadcastToRoom(roomCode, response);
+        broadcastToRoom(room.getCode(), new OutboundEvents.Notice(enable ? "markingEnabled" : "markingDisabled", messageId));
     }
 
-    private void handleWinner(WebSocketSession session, JsonNode data) throws IOException {
-        String roomCode = data.get("roomCode").asText();
-        String playerName = data.get("playerName").asText();
-        String messageId = data.has("messageId") ? data.get("messageId").asText() : null;
-        GameRoom room = gameRooms.get(roomCode);
+    private void handleWinner(String sessionId, InboundCommand command) throws IOException {
+        String roomCode = command.getRoomCode();
+        String playerName = command.getPlayerName();
+        String messageId = command.getMessageId();
+        GameRoom room = roomRegistry.get(roomCode);
 
         if (room == null) {
-            sendError(session, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
+            sendError(sessionId, "Sala no encontrada", "ROOM_NOT_FOUND", messageId);
             return;
         }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("event", "gameWinner");
-        response.put("playerName", playerName);
-        if (messageId != null) {
-            response.put("messageId", messageId);
+        broadcastToRoom(room.getCode(), new OutboundEvents.GameWinner(playerName, messageId));
+    }
+
+    // Los fragmentos opacos del cliente se reenvían tal cual, sin volver a parsearlos
+    private static RawJson rawJson(String json) {
+        return json != null ? new RawJson(json) : null;
+    }
+
+    private void sendTo(String sessionId, OutboundEvent event) throws IOException {
+        if (clusterRouter.isRemoteSession(sessionId)) {
+            clusterRouter.sendTo(sessionId, event);
+            return;
         }
+        broadcastEngine.send(sessionId, outboundWriter.frame(event));
+    }
 
-        broadcastToRoom(roomCode, response);
+    private void broadcastToRoom(String roomCode, OutboundEvent event) throws IOException {
+        if (coalescer != null) {
+            coalescer.submit(roomCode, event);
+        } else {
+            sendBroadcast(roomCode, event);
+        }
     }
 
-    private void broadcastToRoom(String roomCode, Map<String, Object> message) throws IOException {
-        GameRoom room = gameRooms.get(roomCode);
+    // Destinatarios resueltos al enviar: con agrupación por tick, los de ese momento
+    private void sendBroadcast(String roomCode, OutboundEvent event) throws IOException {
+        GameRoom room = roomRegistry.get(roomCode);
         if (room != null) {
-            String messageStr = objectMapper.writeValueAsString(message);
-            for (Player player : room.getPlayers()) {
-                WebSocketSession playerSession = sessions.get(player.getId());
-                if (playerSession != null && playerSession.isOpen()) {
-                    playerSession.sendMessage(new TextMessage(messageStr));
-                }
-            }
+            broadcastEngine.broadcast(room.getCode(), room.getPlayers(), outboundWriter.frame(event));
+            clusterRouter.broadcast(room.getPlayers(), event);
         }
     }
 }
\ No newline at end of file
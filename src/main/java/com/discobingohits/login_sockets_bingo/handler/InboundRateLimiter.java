@@ -0,0 +1,181 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
+import com.discobingohits.login_sockets_bingo.protocol.InboundEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Límites de eventos entrantes por sesión y por sala, con un cubo por tipo de
+ * evento. Cada cubo es un GCRA sobre un AtomicLongArray (un long por evento):
+ * comprobar un mensaje es un CAS, sin locks ni memoria nueva. La
+ * configuración es una lista "evento:por_segundo/ráfaga", y "*" vale para el
+ * resto de eventos.
+ */
+class InboundRateLimiter {
+    private static final int EVENTS = InboundEvent.values().length;
+
+    // Intervalo entre eventos y ráfaga tolerada, en ns; intervalo 0 = sin límite
+    private static final class Limits {
+        final long[] intervalNanos = new long[EVENTS];
+        final long[] burstNanos = new long[EVENTS];
+
+        static Limits parse(String spec) {
+            Limits limits = new Limits();
+            long defaultInterval = 0;
+            long defaultBurst = 0;
+            boolean[] explicit = new boolean[EVENTS];
+            for (String entry : spec.split(",")) {
+                entry = entry.trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                int colon = entry.indexOf(':');
+                int slash = entry.indexOf('/', colon);
+                if (colon < 0 || slash < 0) {
+                    throw new IllegalStateException("Límite no válido '" + entry + "', se espera evento:por_segundo/ráfaga");
+                }
+                String name = entry.substring(0, colon).trim();
+                double perSecond = Double.parseDouble(entry.substring(colon + 1, slash).trim());
+                int burst = Integer.parseInt(entry.substring(slash + 1).trim());
+                if (perSecond <= 0 || burst < 1) {
+                    throw new IllegalStateException("Límite no válido '" + entry + "'");
+                }
+                long interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+                if ("*".equals(name)) {
+                    defaultInterval = interval;
+                    defaultBurst = interval * burst;
+                    continue;
+                }
+                InboundEvent event = InboundEvent.fromName(name);
+                if (event == null) {
+                    throw new IllegalStateException("Evento desconocido en el límite: " + name);
+                }
+                limits.intervalNanos[event.ordinal()] = interval;
+                limits.burstNanos[event.ordinal()] = interval * burst;
+                explicit[event.ordinal()] = true;
+            }
+            for (int i = 0; i < EVENTS; i++) {
+                if (!explicit[i]) {
+                    limits.intervalNanos[i] = defaultInterval;
+                    limits.burstNanos[i] = defaultBurst;
+                }
+            }
+            return limits;
+        }
+    }
+
+    private final boolean enabled;
+    private final Limits sessionLimits;
+    private final Limits roomLimits;
+    private final LongSupplier nanoClock;
+    // Los tiempos se guardan relativos a origin para que el valor inicial 0 sea "cubo lleno"
+    private final long origin;
+    private final Map<String, AtomicLongArray> sessionBuckets = new ConcurrentHashMap<>();
+    private final LongKeyedMap<AtomicLongArray> roomBuckets = new LongKeyedMap<>(256);
+    private final Counter[] sessionThrottled = new Counter[EVENTS];
+    private final Counter[] roomThrottled = new Counter[EVENTS];
+
+    InboundRateLimiter(boolean enabled, String sessionSpec, String roomSpec, MeterRegistry meterRegistry) {
+        this(enabled, sessionSpec, roomSpec, meterRegistry, System::nanoTime);
+    }
+
+    // Con reloj propio para los tests
+    InboundRateLimiter(boolean enabled, String sessionSpec, String roomSpec, MeterRegistry meterRegistry,
+                       LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        this.sessionLimits = Limits.parse(sessionSpec);
+        this.roomLimits = Limits.parse(roomSpec);
+        for (InboundEvent event : InboundEvent.values()) {
+            sessionThrottled[event.ordinal()] = throttledCounter("session", event, meterRegistry);
+            roomThrottled[event.ordinal()] = throttledCounter("room", event, meterRegistry);
+        }
+    }
+
+    private static Counter throttledCounter(String scope, InboundEvent event, MeterRegistry meterRegistry) {
+        return Counter.builder("bingo.socket.throttled")
+                .description("Eventos entrantes descartados por superar el límite")
+                .tag("scope", scope)
+                .tag("event", event.getEventName())
+                .register(meterRegistry);
+    }
+
+    void sessionOpened(String sessionId) {
+        if (enabled) {
+            sessionBuckets.put(sessionId, new AtomicLongArray(EVENTS));
+        }
+    }
+
+    void sessionClosed(String sessionId) {
+        sessionBuckets.remove(sessionId);
+    }
+
+    void roomRemoved(String roomCode) {
+        long key = RoomCodes.key(roomCode);
+        if (key > 0) {
+            roomBuckets.remove(key);
+        }
+    }
+
+    boolean allowSession(String sessionId, InboundEvent event) {
+        if (!enabled) {
+            return true;
+        }
+        AtomicLongArray buckets = sessionBuckets.get(sessionId);
+        if (buckets == null || take(buckets, sessionLimits, event)) {
+            return true;
+        }
+        sessionThrottled[event.ordinal()].increment();
+        return false;
+    }
+
+    // Solo se llama con salas existentes, así que no crecen cubos para códigos inventados
+    boolean allowRoom(GameRoom room, InboundEvent event) {
+        if (!enabled || roomLimits.intervalNanos[event.ordinal()] == 0) {
+            return true;
+        }
+        long key = RoomCodes.key(room.getCode());
+        AtomicLongArray buckets = roomBuckets.get(key);
+        if (buckets == null) {
+            AtomicLongArray created = new AtomicLongArray(EVENTS);
+            AtomicLongArray existing = roomBuckets.putIfAbsent(key, created);
+            buckets = existing != null ? existing : created;
+        }
+        if (take(buckets, roomLimits, event)) {
+            return true;
+        }
+        roomThrottled[event.ordinal()].increment();
+        return false;
+    }
+
+    // GCRA: cada evento adelanta el instante teórico de llegada (TAT) un intervalo;
+    // se rechaza si el TAT queda más allá de la ráfaga permitida
+    private boolean take(AtomicLongArray buckets, Limits limits, InboundEvent event) {
+        int index = event.ordinal();
+        long interval = limits.intervalNanos[index];
+        if (interval == 0) {
+            return true;
+        }
+        long burst = limits.burstNanos[index];
+        long now = nanoClock.getAsLong() - origin;
+        while (true) {
+            long tat = buckets.get(index);
+            long next = Math.max(tat, now) + interval;
+            if (next - now > burst) {
+                return false;
+            }
+            if (buckets.compareAndSet(index, tat, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de entrada por sala. Cada sala tiene su propio buzón y como máximo una
+ * admisión programada a la vez, así que las entradas de una misma sala se
+ * procesan en serie y espaciadas sin bloquear los hilos de WebSocket.
+ */
+class JoinQueue {
+    private static final Logger log = LoggerFactory.getLogger(JoinQueue.class);
+
+    interface Admission {
+        void admit(String roomCode, Entry entry) throws Exception;
+    }
+
+    static final class Entry {
+        final String sessionId;
+        final String playerName;
+        final String messageId;
+        final long enqueuedAt = System.nanoTime();
+
+        Entry(String sessionId, String playerName, String messageId) {
+            this.sessionId = sessionId;
+            this.playerName = playerName;
+            this.messageId = messageId;
+        }
+    }
+
+    private static final class Mailbox {
+        final String roomCode;
+        final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(String roomCode) {
+            this.roomCode = roomCode;
+        }
+    }
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger totalDepth = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private final long admissionDelayMs;
+    private final Admission admission;
+    private final Timer waitTimer;
+
+    JoinQueue(ScheduledExecutorService scheduler, long admissionDelayMs, Admission admission, MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.admissionDelayMs = admissionDelayMs;
+        this.admission = admission;
+        this.waitTimer = Timer.builder("bingo.join.queue.wait")
+                .description("Tiempo desde que un jugador entra en la cola hasta que se admite")
+                .register(meterRegistry);
+        Gauge.builder("bingo.join.queue.depth", totalDepth, AtomicInteger::get)
+                .description("Jugadores esperando entrar en alguna sala")
+                .register(meterRegistry);
+    }
+
+    void enqueue(String roomCode, Entry entry) {
+        Mailbox mailbox = mailboxes.computeIfAbsent(roomCode, Mailbox::new);
+        mailbox.entries.add(entry);
+        mailbox.depth.incrementAndGet();
+        totalDepth.incrementAndGet();
+        scheduleAdmission(mailbox);
+    }
+
+    int getDepth(String roomCode) {
+        Mailbox mailbox = mailboxes.get(roomCode);
+        return mailbox == null ? 0 : mailbox.depth.get();
+    }
+
+    int getTotalDepth() {
+        return totalDepth.get();
+    }
+
+    // Las entradas pendientes siguen su curso y la admisión las rechaza al no encontrar la sala
+    void removeRoom(String roomCode) {
+        mailboxes.remove(roomCode);
+    }
+
+    private void scheduleAdmission(Mailbox mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> admitNext(mailbox), admissionDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void admitNext(Mailbox mailbox) {
+        Entry entry = mailbox.entries.poll();
+        if (entry != null) {
+            mailbox.depth.decrementAndGet();
+            totalDepth.decrementAndGet();
+            waitTimer.record(System.nanoTime() - entry.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                admission.admit(mailbox.roomCode, entry);
+            } catch (Exception e) {
+                log.error("Error al admitir jugador en la sala {}", mailbox.roomCode, e);
+            }
+        }
+
+        mailbox.scheduled.set(false);
+        if (!mailbox.entries.isEmpty()) {
+            scheduleAdmission(mailbox);
+        }
+    }
+}
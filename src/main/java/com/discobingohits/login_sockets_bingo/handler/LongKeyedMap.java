@@ -0,0 +1,226 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Mapa de claves long > 0 con direccionamiento abierto (sondeo lineal y
+ * borrado por desplazamiento, sin lápidas). Las lecturas son optimistas con
+ * StampedLock y no reservan memoria; las escrituras se serializan.
+ */
+final class LongKeyedMap<V> {
+    private static final long EMPTY = 0;
+
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+    private int size;
+
+    LongKeyedMap(int initialCapacity) {
+        this.table = new Table(Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1);
+    }
+
+    V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        V value = find(table, key);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table, key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Devuelve el valor que ya había, o null si se ha insertado
+    V putIfAbsent(long key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            V existing = find(table, key);
+            if (existing == null) {
+                insert(key, value);
+            }
+            return existing;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    V put(long key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int index = indexOf(current, key);
+            if (index >= 0) {
+                V previous = cast(current.values[index]);
+                current.values[index] = value;
+                return previous;
+            }
+            insert(key, value);
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Solo elimina si la clave sigue asociada a ese valor
+    boolean remove(long key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int index = indexOf(current, key);
+            if (index < 0 || current.values[index] != value) {
+                return false;
+            }
+            delete(current, index);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    V remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int index = indexOf(current, key);
+            if (index < 0) {
+                return null;
+            }
+            V previous = cast(current.values[index]);
+            delete(current, index);
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    List<V> values() {
+        long stamp = lock.readLock();
+        try {
+            Table current = table;
+            List<V> values = new ArrayList<>(size);
+            for (int i = 0; i < current.keys.length; i++) {
+                if (current.keys[i] != EMPTY) {
+                    values.add(cast(current.values[i]));
+                }
+            }
+            return values;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private V find(Table current, long key) {
+        long[] keys = current.keys;
+        int index = (int) mix(key) & current.mask;
+        // Con lectura optimista la tabla puede estar a medio cambiar: se limita el sondeo
+        for (int probes = 0; probes < keys.length; probes++) {
+            long candidate = keys[index];
+            if (candidate == EMPTY) {
+                return null;
+            }
+            if (candidate == key) {
+                return cast(current.values[index]);
+            }
+            index = (index + 1) & current.mask;
+        }
+        return null;
+    }
+
+    private int indexOf(Table current, long key) {
+        int index = (int) mix(key) & current.mask;
+        while (true) {
+            long candidate = current.keys[index];
+            if (candidate == EMPTY) {
+                return -1;
+            }
+            if (candidate == key) {
+                return index;
+            }
+            index = (index + 1) & current.mask;
+        }
+    }
+
+    private void insert(long key, V value) {
+        if ((size + 1) * 2 > table.keys.length) {
+            resize();
+        }
+        Table current = table;
+        int index = (int) mix(key) & current.mask;
+        while (current.keys[index] != EMPTY) {
+            index = (index + 1) & current.mask;
+        }
+        current.values[index] = value;
+        current.keys[index] = key;
+        size++;
+    }
+
+    private void delete(Table current, int index) {
+        // Se desplazan hacia atrás las entradas del mismo grupo para no dejar huecos en el sondeo
+        int gap = index;
+        int next = (gap + 1) & current.mask;
+        while (current.keys[next] != EMPTY) {
+            int home = (int) mix(current.keys[next]) & current.mask;
+            if (((next - home) & current.mask) >= ((next - gap) & current.mask)) {
+                current.keys[gap] = current.keys[next];
+                current.values[gap] = current.values[next];
+                gap = next;
+            }
+            next = (next + 1) & current.mask;
+        }
+        current.keys[gap] = EMPTY;
+        current.values[gap] = null;
+        size--;
+    }
+
+    private void resize() {
+        Table old = table;
+        Table resized = new Table(old.keys.length * 2);
+        for (int i = 0; i < old.keys.length; i++) {
+            long key = old.keys[i];
+            if (key != EMPTY) {
+                int index = (int) mix(key) & resized.mask;
+                while (resized.keys[index] != EMPTY) {
+                    index = (index + 1) & resized.mask;
+                }
+                resized.keys[index] = key;
+                resized.values[index] = old.values[i];
+            }
+        }
+        table = resized;
+    }
+
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+}
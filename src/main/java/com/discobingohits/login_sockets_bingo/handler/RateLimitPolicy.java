@@ -0,0 +1,8 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+public enum RateLimitPolicy {
+    // Se descarta el evento y la sesión sigue abierta
+    DROP,
+    // Se descarta el evento y se cierra la sesión con POLICY_VIOLATION
+    DISCONNECT
+}
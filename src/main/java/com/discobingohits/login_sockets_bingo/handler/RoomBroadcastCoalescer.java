@@ -0,0 +1,124 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupa las difusiones de cada sala durante un tick y las envía juntas en un
+ * solo frame "batch", en el orden en que se produjeron. Con ráfagas (varias
+ * entradas, listos y cambios de jugador seguidos) se serializa y se escribe
+ * una vez por destinatario en lugar de una por evento. Los eventos de
+ * {@code bypass} salen al momento, tras vaciar lo pendiente de su sala; los
+ * terminales (host desconectado, sala caducada, errores) también, se
+ * configuren o no, porque tras ellos la sala se elimina y lo pendiente se
+ * descarta. Las salas se agrupan por su clave numérica, así que el código no
+ * distingue mayúsculas.
+ */
+class RoomBroadcastCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(RoomBroadcastCoalescer.class);
+    private static final Set<String> TERMINAL = Set.of("hostDisconnected", "roomExpired", "error");
+
+    interface Sink {
+        void broadcast(String roomCode, OutboundEvent event) throws IOException;
+    }
+
+    private static final class Pending {
+        final String roomCode;
+        List<OutboundEvent> events = new ArrayList<>();
+        boolean scheduled;
+
+        Pending(String roomCode) {
+            this.roomCode = roomCode;
+        }
+    }
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final long tickMs;
+    private final Set<String> bypass;
+    private final Sink sink;
+    private final Counter coalesced;
+    private final DistributionSummary batchSize;
+
+    RoomBroadcastCoalescer(ScheduledExecutorService scheduler, long tickMs, Set<String> bypass, Sink sink,
+                           MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.tickMs = tickMs;
+        this.bypass = bypass;
+        this.sink = sink;
+        this.coalesced = Counter.builder("bingo.broadcast.coalesced")
+                .description("Eventos de sala enviados dentro de un batch")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("bingo.broadcast.batch.size")
+                .description("Eventos por frame enviado al vaciar el tick de una sala")
+                .register(meterRegistry);
+    }
+
+    void submit(String roomCode, OutboundEvent event) throws IOException {
+        Pending room = pending.computeIfAbsent(RoomCodes.key(roomCode), key -> new Pending(roomCode));
+        // El envío se hace con el lock tomado para que dos vaciados de la misma sala no se adelanten
+        synchronized (room) {
+            if (bypass.contains(event.getEvent()) || TERMINAL.contains(event.getEvent())) {
+                flush(room);
+                sink.broadcast(room.roomCode, event);
+                return;
+            }
+            room.events.add(event);
+            if (!room.scheduled) {
+                room.scheduled = true;
+                scheduler.schedule(() -> onTick(room), tickMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Lo pendiente de una sala eliminada se descarta: ya no hay a quién enviarlo
+    void roomRemoved(String roomCode) {
+        Pending room = pending.remove(RoomCodes.key(roomCode));
+        if (room != null) {
+            synchronized (room) {
+                room.events = new ArrayList<>();
+            }
+        }
+    }
+
+    private void onTick(Pending room) {
+        synchronized (room) {
+            room.scheduled = false;
+            try {
+                flush(room);
+            } catch (Exception e) {
+                log.error("Error al vaciar las difusiones de la sala {}", room.roomCode, e);
+            }
+        }
+    }
+
+    private void flush(Pending room) throws IOException {
+        List<OutboundEvent> events = room.events;
+        if (events.isEmpty()) {
+            return;
+        }
+        room.events = new ArrayList<>();
+        batchSize.record(events.size());
+        if (events.size() == 1) {
+            sink.broadcast(room.roomCode, events.get(0));
+            return;
+        }
+        coalesced.increment(events.size());
+        sink.broadcast(room.roomCode, new OutboundEvents.Batch(events));
+    }
+}
@@ -0,0 +1,199 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Caducidad de salas sobre una rueda de tiempo con ticks de un segundo. La
+ * actividad solo actualiza lastActivityAt en la sala; cuando la rueda llega a
+ * una entrada se recalcula su plazo y, si la sala sigue viva, se vuelve a
+ * colocar. Cada tick cuesta lo que ocupe su casilla, no el total de salas.
+ * Si el plazo se adelanta (la sala se queda sin jugadores) se coloca una
+ * entrada nueva y la anterior se descarta al llegar a ella.
+ */
+class RoomExpiry {
+    private static final Logger log = LoggerFactory.getLogger(RoomExpiry.class);
+    private static final int WHEEL_SLOTS = 2048;
+    private static final long TICK_MS = 1000;
+
+    enum Reason { IDLE, HARD_TTL, EMPTY }
+
+    interface Expired {
+        void expire(GameRoom room, Reason reason);
+    }
+
+    private static final class Entry {
+        final GameRoom room;
+        long deadlineTick;
+        boolean cancelled;
+
+        Entry(GameRoom room, long deadlineTick) {
+            this.room = room;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long idleTtlMs;
+    private final long hardTtlMs;
+    private final long emptyGraceMs;
+    private final Predicate<GameRoom> live;
+    private final Expired expired;
+    private final LongSupplier clock;
+    // Las casillas solo las toca el hilo del tick; las altas llegan por la bandeja
+    private final Queue<Entry> inbox = new ConcurrentLinkedQueue<>();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Entry>[] wheel = new ArrayDeque[WHEEL_SLOTS];
+    // Entrada vigente de cada sala; también solo del hilo del tick
+    private final Map<GameRoom, Entry> entries = new IdentityHashMap<>();
+    private final Counter idleExpired;
+    private final Counter hardExpired;
+    private final Counter emptyExpired;
+    private long currentTick;
+
+    RoomExpiry(ScheduledExecutorService scheduler, long idleTtlMs, long hardTtlMs, long emptyGraceMs,
+               Predicate<GameRoom> live, Expired expired, MeterRegistry meterRegistry) {
+        this(scheduler, idleTtlMs, hardTtlMs, emptyGraceMs, live, expired, meterRegistry, System::currentTimeMillis);
+    }
+
+    // Sin scheduler los ticks los da quien llama a tick(); para los tests con reloj propio
+    RoomExpiry(ScheduledExecutorService scheduler, long idleTtlMs, long hardTtlMs, long emptyGraceMs,
+               Predicate<GameRoom> live, Expired expired, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.idleTtlMs = idleTtlMs;
+        this.hardTtlMs = hardTtlMs;
+        this.emptyGraceMs = emptyGraceMs;
+        this.live = live;
+        this.expired = expired;
+        this.clock = clock;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.idleExpired = expiredCounter(Reason.IDLE, meterRegistry);
+        this.hardExpired = expiredCounter(Reason.HARD_TTL, meterRegistry);
+        this.emptyExpired = expiredCounter(Reason.EMPTY, meterRegistry);
+        this.currentTick = tickOf(clock.getAsLong());
+        if (scheduler != null) {
+            scheduler.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Counter expiredCounter(Reason reason, MeterRegistry meterRegistry) {
+        return Counter.builder("bingo.rooms.expired")
+                .description("Salas eliminadas por caducidad")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    void schedule(GameRoom room) {
+        room.setLastActivityAt(clock.getAsLong());
+        inbox.add(new Entry(room, tickOf(deadlineOf(room))));
+    }
+
+    void touch(GameRoom room) {
+        room.setLastActivityAt(clock.getAsLong());
+    }
+
+    // Tras cambiar emptySince: la entrada actual podría estar más lejos que el nuevo plazo
+    void deadlineChanged(GameRoom room) {
+        inbox.add(new Entry(room, tickOf(deadlineOf(room))));
+    }
+
+    void tick() {
+        try {
+            Entry entry;
+            while ((entry = inbox.poll()) != null) {
+                Entry previous = entries.put(entry.room, entry);
+                if (previous != null) {
+                    previous.cancelled = true;
+                }
+                place(entry);
+            }
+
+            long nowTick = tickOf(clock.getAsLong());
+            while (currentTick <= nowTick) {
+                ArrayDeque<Entry> slot = wheel[(int) (currentTick % WHEEL_SLOTS)];
+                for (int i = slot.size(); i > 0; i--) {
+                    Entry next = slot.poll();
+                    if (next.cancelled) {
+                        continue;
+                    }
+                    if (next.deadlineTick > currentTick) {
+                        slot.add(next); // vueltas pendientes
+                    } else {
+                        evaluate(next);
+                    }
+                }
+                currentTick++;
+            }
+        } catch (Exception e) {
+            log.error("Error al procesar la caducidad de salas", e);
+        }
+    }
+
+    private void evaluate(Entry entry) {
+        GameRoom room = entry.room;
+        if (!live.test(room)) {
+            entries.remove(room, entry);
+            return;
+        }
+        long now = clock.getAsLong();
+        long deadline = deadlineOf(room);
+        if (deadline > now) {
+            // Nunca en la casilla que se está recorriendo, o esperaría una vuelta entera
+            entry.deadlineTick = Math.max(tickOf(deadline), currentTick + 1);
+            place(entry);
+            return;
+        }
+        Reason reason = reasonOf(room, now);
+        switch (reason) {
+            case IDLE -> idleExpired.increment();
+            case HARD_TTL -> hardExpired.increment();
+            case EMPTY -> emptyExpired.increment();
+        }
+        entries.remove(room, entry);
+        expired.expire(room, reason);
+    }
+
+    private void place(Entry entry) {
+        // Un plazo ya vencido cae en el siguiente tick
+        long tick = Math.max(entry.deadlineTick, currentTick);
+        entry.deadlineTick = tick;
+        wheel[(int) (tick % WHEEL_SLOTS)].add(entry);
+    }
+
+    private long deadlineOf(GameRoom room) {
+        long deadline = Math.min(room.getLastActivityAt() + idleTtlMs, room.getCreatedAt().getTime() + hardTtlMs);
+        long emptySince = room.getEmptySince();
+        if (emptySince > 0) {
+            deadline = Math.min(deadline, emptySince + emptyGraceMs);
+        }
+        return deadline;
+    }
+
+    private Reason reasonOf(GameRoom room, long now) {
+        if (room.getCreatedAt().getTime() + hardTtlMs <= now) {
+            return Reason.HARD_TTL;
+        }
+        long emptySince = room.getEmptySince();
+        if (emptySince > 0 && emptySince + emptyGraceMs <= now) {
+            return Reason.EMPTY;
+        }
+        return Reason.IDLE;
+    }
+
+    private static long tickOf(long millis) {
+        return (millis + TICK_MS - 1) / TICK_MS;
+    }
+}
@@ -0,0 +1,126 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
+import com.discobingohits.login_sockets_bingo.model.Player;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Salas activas junto con los índices inversos sesión → sala y host → sala.
+ * Los cambios de pertenencia se hacen con el monitor de la sala, de modo que
+ * la lista de jugadores y los índices nunca se ven desincronizados. Las salas
+ * se indexan por la clave numérica de su código (ver RoomCodes).
+ */
+class RoomRegistry {
+    private final LongKeyedMap<GameRoom> rooms = new LongKeyedMap<>(256);
+    private final Map<String, String> sessionRooms = new ConcurrentHashMap<>();
+    private final Map<String, String> hostRooms = new ConcurrentHashMap<>();
+
+    GameRoom get(String roomCode) {
+        long key = RoomCodes.key(roomCode);
+        return key > 0 ? rooms.get(key) : null;
+    }
+
+    Collection<GameRoom> rooms() {
+        return rooms.values();
+    }
+
+    int size() {
+        return rooms.size();
+    }
+
+    String roomOfSession(String sessionId) {
+        return sessionRooms.get(sessionId);
+    }
+
+    String roomHostedBy(String sessionId) {
+        return hostRooms.get(sessionId);
+    }
+
+    // Registra la sala solo si su código está libre; nunca pisa una sala viva
+    boolean registerIfAbsent(GameRoom room) {
+        long key = RoomCodes.key(room.getCode());
+        if (key <= 0) {
+            throw new IllegalArgumentException("Código de sala no válido: " + room.getCode());
+        }
+        synchronized (room) {
+            if (rooms.putIfAbsent(key, room) != null) {
+                return false;
+            }
+            hostRooms.put(room.getHost(), room.getCode());
+            for (Player player : room.getPlayers()) {
+                sessionRooms.put(player.getId(), room.getCode());
+            }
+            return true;
+        }
+    }
+
+    GameRoom remove(String roomCode) {
+        long key = RoomCodes.key(roomCode);
+        GameRoom room = key > 0 ? rooms.remove(key) : null;
+        if (room != null) {
+            synchronized (room) {
+                unindex(room);
+            }
+        }
+        return room;
+    }
+
+    // Los cambios de jugadores devuelven la nueva versión de la lista (o -1 si no hubo cambio)
+    long addPlayer(GameRoom room, Player player) {
+        synchronized (room) {
+            room.getPlayers().add(player);
+            sessionRooms.put(player.getId(), room.getCode());
+            return room.nextRosterVersion();
+        }
+    }
+
+    long rebindPlayer(GameRoom room, Player player, String sessionId) {
+        synchronized (room) {
+            sessionRooms.remove(player.getId(), room.getCode());
+            player.setId(sessionId);
+            sessionRooms.put(sessionId, room.getCode());
+            return room.nextRosterVersion();
+        }
+    }
+
+    // El host de una sala restaurada vuelve con una sesión nueva
+    long rebindHost(GameRoom room, String sessionId) {
+        synchronized (room) {
+            String roomCode = room.getCode();
+            String previousHost = room.getHost();
+            hostRooms.remove(previousHost, roomCode);
+            for (Player player : room.getPlayers()) {
+                if (player.getId().equals(previousHost)) {
+                    sessionRooms.remove(previousHost, roomCode);
+                    player.setId(sessionId);
+                }
+            }
+            room.setHost(sessionId);
+            hostRooms.put(sessionId, roomCode);
+            sessionRooms.put(sessionId, roomCode);
+            return room.nextRosterVersion();
+        }
+    }
+
+    long removePlayer(GameRoom room, String sessionId) {
+        synchronized (room) {
+            sessionRooms.remove(sessionId, room.getCode());
+            if (!room.getPlayers().removeIf(p -> p.getId().equals(sessionId))) {
+                return -1;
+            }
+            return room.nextRosterVersion();
+        }
+    }
+
+    private void unindex(GameRoom room) {
+        String roomCode = room.getCode();
+        hostRooms.remove(room.getHost(), roomCode);
+        for (Player player : room.getPlayers()) {
+            sessionRooms.remove(player.getId(), roomCode);
+        }
+    }
+}
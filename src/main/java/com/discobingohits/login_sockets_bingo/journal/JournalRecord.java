@@ -0,0 +1,74 @@
+package com.discobingohits.login_sockets_bingo.journal;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.GameState;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Entrada del journal: el estado completo de una sala tras un cambio (ROOM) o
+ * su eliminación (REMOVED). Al reproducir, la última entrada de cada sala gana.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+class JournalRecord {
+    enum Type { ROOM, REMOVED }
+
+    private Type type;
+    private String code;
+    private String host;
+    private String hostUsername;
+    private List<Player> players;
+    private GameConfig config;
+    private String currentCategory;
+    private String phase;
+    private Date createdAt;
+    private GameState gameState;
+    private long rosterVersion;
+
+    static JournalRecord removed(String code) {
+        JournalRecord record = new JournalRecord();
+        record.type = Type.REMOVED;
+        record.code = code;
+        return record;
+    }
+
+    // Debe llamarse con el monitor de la sala tomado para capturar un estado coherente
+    static JournalRecord of(GameRoom room) {
+        JournalRecord record = new JournalRecord();
+        record.type = Type.ROOM;
+        record.code = room.getCode();
+        record.host = room.getHost();
+        record.hostUsername = room.getHostUsername();
+        record.players = new ArrayList<>(room.getPlayers());
+        record.config = room.getConfig();
+        record.currentCategory = room.getCurrentCategory();
+        record.phase = room.getPhase();
+        record.createdAt = room.getCreatedAt();
+        record.gameState = room.getGameState();
+        record.rosterVersion = room.getRosterVersion();
+        return record;
+    }
+
+    GameRoom toRoom() {
+        GameRoom room = new GameRoom(host, config);
+        room.setCode(code);
+        room.setHostUsername(hostUsername);
+        room.getPlayers().addAll(players);
+        room.setCurrentCategory(currentCategory);
+        room.setPhase(phase);
+        room.setCreatedAt(createdAt);
+        room.setGameState(gameState);
+        room.restoreRosterVersion(rosterVersion);
+        room.setAwaitingHost(true);
+        return room;
+    }
+}
@@ -0,0 +1,385 @@
+package com.discobingohits.login_sockets_bingo.journal;
+
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal local de salas, solo de escritura al final. Los cambios se encolan
+ * ya serializados y un único hilo los copia a un segmento mapeado en memoria
+ * y hace un force() por grupo. Cada cierto tiempo se escribe un snapshot con
+ * el último estado de cada sala y se descartan los segmentos anteriores, así
+ * que al arrancar solo se reproduce la cola. Si no ha cambiado nada desde el
+ * último snapshot no se escribe otro. Un registro que no cabe en un segmento
+ * se rechaza al encolarlo.
+ *
+ * Formato de registro: [int longitud][int crc32][JSON]; longitud 0 = fin.
+ */
+@Component
+public class RoomJournal {
+    private static final Logger log = LoggerFactory.getLogger(RoomJournal.class);
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final int HEADER_BYTES = 8;
+    // Marca de fin (longitud 0) que debe caber siempre tras el último registro
+    private static final int END_MARK_BYTES = 4;
+    private static final Unmapper UNMAPPER = Unmapper.find();
+
+    private record Pending(String roomCode, boolean removed, byte[] payload) {
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    // Último registro de cada sala; solo lo toca el hilo escritor
+    private final Map<String, byte[]> latest = new LinkedHashMap<>();
+    private final List<GameRoom> recovered = new ArrayList<>();
+    private final ScheduledExecutorService writer;
+    private final Timer flushTimer;
+    private final DistributionSummary groupSize;
+    private final Counter rejected;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentSeq;
+    // Hay registros escritos que el último snapshot no incluye
+    private boolean dirty;
+    private volatile boolean accepting;
+
+    public RoomJournal(@Value("${app.journal.enabled:false}") boolean enabled,
+                       @Value("${app.journal.dir:./data/journal}") String dir,
+                       @Value("${app.journal.segment-bytes:16777216}") int segmentBytes,
+                       @Value("${app.journal.flush-interval-ms:10}") long flushIntervalMs,
+                       @Value("${app.journal.snapshot-interval-ms:60000}") long snapshotIntervalMs,
+                       MeterRegistry meterRegistry) throws IOException {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+        this.flushTimer = Timer.builder("bingo.journal.flush")
+                .description("Tiempo de cada escritura en grupo del journal, incluido el force()")
+                .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder("bingo.journal.group.size")
+                .description("Registros por escritura en grupo")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("bingo.journal.rejected")
+                .description("Registros descartados por no caber en un segmento")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            this.writer = null;
+            return;
+        }
+
+        Files.createDirectories(this.dir);
+        long started = System.nanoTime();
+        long lastSeq = recover();
+        log.info("Journal: {} salas recuperadas en {} ms", recovered.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("journal-"));
+        openSegment(lastSeq + 1);
+        // El estado recuperado pasa a un snapshot nuevo para no volver a leer los segmentos viejos
+        writeSnapshot();
+        this.accepting = true;
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        writer.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Salas recuperadas al arrancar; se entregan una sola vez
+    public List<GameRoom> drainRecoveredRooms() {
+        List<GameRoom> rooms = new ArrayList<>(recovered);
+        recovered.clear();
+        return rooms;
+    }
+
+    // Llamar con el monitor de la sala tomado, justo después del cambio
+    public void roomChanged(GameRoom room) {
+        if (accepting) {
+            append(JournalRecord.of(room));
+        }
+    }
+
+    public void roomRemoved(String roomCode) {
+        if (accepting) {
+            append(JournalRecord.removed(roomCode));
+        }
+    }
+
+    private void append(JournalRecord record) {
+        try {
+            byte[] payload = mapper.writeValueAsBytes(record);
+            if (HEADER_BYTES + payload.length + END_MARK_BYTES > segmentBytes) {
+                rejected.increment();
+                log.error("La sala {} ocupa {} bytes y no cabe en un segmento del journal de {} bytes; "
+                        + "el cambio no se guarda", record.getCode(), payload.length, segmentBytes);
+                return;
+            }
+            pending.add(new Pending(record.getCode(), record.getType() == JournalRecord.Type.REMOVED, payload));
+        } catch (IOException e) {
+            log.error("Error al serializar la sala {} para el journal", record.getCode(), e);
+        }
+    }
+
+    // Al apagar, los cierres de sesión no deben borrar las salas del journal
+    @EventListener(ContextClosedEvent.class)
+    public void stopAccepting() {
+        accepting = false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        accepting = false;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+            if (dirty) {
+                writeSnapshot();
+            }
+            closeSegment();
+        } catch (Exception e) {
+            log.error("Error al cerrar el journal", e);
+        }
+    }
+
+    private synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        int count = 0;
+        try {
+            Pending next;
+            while ((next = pending.poll()) != null) {
+                byte[] payload = next.payload();
+                // append() garantiza que el registro cabe en un segmento vacío
+                if (segment.remaining() < HEADER_BYTES + payload.length + END_MARK_BYTES) {
+                    segment.force();
+                    openSegment(segmentSeq + 1);
+                }
+                segment.putInt(payload.length);
+                segment.putInt(crc(payload));
+                segment.put(payload);
+                remember(next.roomCode(), next.removed(), payload);
+                dirty = true;
+                count++;
+            }
+            segment.force();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error al escribir en el journal", e);
+        }
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        groupSize.record(count);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            flush();
+            if (dirty) {
+                writeSnapshot();
+            }
+        } catch (Exception e) {
+            log.error("Error al escribir el snapshot del journal", e);
+        }
+    }
+
+    // El snapshot N cubre todo lo escrito en los segmentos anteriores a N
+    private synchronized void writeSnapshot() throws IOException {
+        segment.force();
+        openSegment(segmentSeq + 1);
+        long coveredUpTo = segmentSeq;
+
+        Path tmp = dir.resolve(SNAPSHOT_PREFIX + coveredUpTo + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            for (byte[] payload : latest.values()) {
+                header.clear();
+                header.putInt(payload.length).putInt(crc(payload)).flip();
+                out.write(new ByteBuffer[]{header, ByteBuffer.wrap(payload)});
+            }
+            out.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_PREFIX + coveredUpTo + ".bin"), StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+
+        // Todo lo anterior ya está en el snapshot
+        for (Path file : list()) {
+            long seq = sequenceOf(file);
+            if (seq >= 0 && seq < coveredUpTo) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void openSegment(long seq) throws IOException {
+        closeSegment();
+        segmentSeq = seq;
+        channel = FileChannel.open(dir.resolve(SEGMENT_PREFIX + seq + ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    // El mapeo no se libera al cerrar el canal: sin unmap cada segmento viejo seguiría en memoria hasta un GC
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (segment != null) {
+            UNMAPPER.unmap(segment);
+            segment = null;
+        }
+    }
+
+    private long recover() throws IOException {
+        long snapshotSeq = -1;
+        long lastSeq = 0;
+        for (Path file : list()) {
+            String name = file.getFileName().toString();
+            long seq = sequenceOf(file);
+            if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(".bin")) {
+                snapshotSeq = Math.max(snapshotSeq, seq);
+            }
+            lastSeq = Math.max(lastSeq, seq);
+        }
+
+        if (snapshotSeq >= 0) {
+            replay(dir.resolve(SNAPSHOT_PREFIX + snapshotSeq + ".bin"));
+        }
+        List<Path> segments = new ArrayList<>();
+        for (Path file : list()) {
+            if (file.getFileName().toString().startsWith(SEGMENT_PREFIX) && sequenceOf(file) >= snapshotSeq) {
+                segments.add(file);
+            }
+        }
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        for (Path file : segments) {
+            replay(file);
+        }
+
+        for (byte[] payload : latest.values()) {
+            recovered.add(mapper.readValue(payload, JournalRecord.class).toRoom());
+        }
+        return lastSeq;
+    }
+
+    private void replay(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc(payload) != crc) {
+                // Registro a medio escribir por una caída: el resto del segmento no es fiable
+                log.warn("Journal: registro corrupto en {}, se ignora el resto del fichero", file.getFileName());
+                break;
+            }
+            JournalRecord record = mapper.readValue(payload, JournalRecord.class);
+            remember(record.getCode(), record.getType() == JournalRecord.Type.REMOVED, payload);
+        }
+    }
+
+    private void remember(String roomCode, boolean removed, byte[] payload) {
+        if (removed) {
+            latest.remove(roomCode);
+        } else {
+            latest.put(roomCode, payload);
+        }
+    }
+
+    private List<Path> list() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        int start = name.indexOf('-') + 1;
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // Unsafe.invokeCleaner libera el mapeo ya; si no está disponible se deja al GC
+    private record Unmapper(Object unsafe, Method invokeCleaner) {
+        static Unmapper find() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return new Unmapper(field.get(null), unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.warn("Journal: no se pueden liberar los segmentos mapeados, quedarán en memoria hasta un GC");
+                return new Unmapper(null, null);
+            }
+        }
+
+        void unmap(MappedByteBuffer buffer) {
+            if (invokeCleaner == null) {
+                return;
+            }
+            try {
+                invokeCleaner.invoke(unsafe, buffer);
+            } catch (ReflectiveOperationException e) {
+                log.debug("Journal: no se pudo liberar un segmento mapeado: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.discobingohits.login_sockets_bingo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_pending", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_email_outbox_claim", columnList = "claimedBy")
+})
+@Getter
+@Setter
+public class EmailOutbox {
+    public enum Status { PENDING, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String recipient;
+    private String subject;
+
+    @Column(length = 4000)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+    private Date createdAt = new Date();
+    private Date nextAttemptAt = createdAt;
+
+    // Reclamación en curso: mientras dura, nextAttemptAt es el fin de la reclamación
+    private String claimedBy;
+
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -1,34 +1,74 @@
 package com.discobingohits.login_sockets_bingo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Getter
 @Setter
 public class GameRoom {
     private String code;
     private String host;
+    // Username del JWT del host: tras un reinicio solo él puede reclamar la sala
+    @JsonIgnore
+    private String hostUsername;
     private List<Player> players;
     private GameConfig config;
     private String currentCategory;
     private String phase;
     private Date createdAt;
     private GameState gameState;
+    @Setter(AccessLevel.NONE)
+    private long rosterVersion;
+    // Copias ya serializadas de config y gameState; se invalidan al cambiar
+    @JsonIgnore
+    private volatile String encodedConfig;
+    @JsonIgnore
+    private volatile String encodedGameState;
+    // Sala restaurada del journal cuyo host aún no ha vuelto a conectarse
+    @JsonIgnore
+    private volatile boolean awaitingHost;
+    // Para la caducidad: última actividad y desde cuándo se fue el último jugador o falta el host (0 = no corre)
+    @JsonIgnore
+    private volatile long lastActivityAt;
+    @JsonIgnore
+    private volatile long emptySince;
 
     public GameRoom(String host, GameConfig config) {
-        this.code = generateCode();
         this.host = host;
-        this.players = new ArrayList<>();
+        this.players = new CopyOnWriteArrayList<>();
         this.config = config;
         this.phase = "waiting";
         this.createdAt = new Date();
     }
 
-    private String generateCode() {
-        return Long.toString(Math.abs(System.nanoTime()), 36).substring(0, 6).toUpperCase();
+    public void setConfig(GameConfig config) {
+        this.config = config;
+        this.encodedConfig = null;
+    }
+
+    public void setGameState(GameState gameState) {
+        this.gameState = gameState;
+        this.encodedGameState = null;
+    }
+
+    // Para cambios hechos directamente sobre el GameConfig de la sala
+    public void configChanged() {
+        this.encodedConfig = null;
+    }
+
+    // Debe llamarse con el monitor de la sala tomado, junto al cambio de jugadores
+    public long nextRosterVersion() {
+        return ++rosterVersion;
+    }
+
+    // Solo para restaurar salas desde el journal
+    public void restoreRosterVersion(long rosterVersion) {
+        this.rosterVersion = rosterVersion;
     }
 }
@@ -1,12 +1,14 @@
 package com.discobingohits.login_sockets_bingo.model;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.Date;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class GameState {
     private String difficulty;
     private Date startedAt;
@@ -1,12 +1,15 @@
 package com.discobingohits.login_sockets_bingo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.Date;
 
 @Getter
 @Setter
+@NoArgsConstructor
 public class Player {
     private String id;
     private String name;
@@ -15,6 +18,9 @@ public class Player {
     private Date joinedAt;
     private boolean reconnected;
     private String phase;
+    // Restaurado del journal y aún sin reconectar: se descarta si no vuelve a tiempo
+    @JsonIgnore
+    private volatile boolean unclaimed;
 
     public Player(String id, String name, boolean isHost, boolean ready, Date joinedAt) {
         this.id = id;
@@ -0,0 +1,62 @@
+package com.discobingohits.login_sockets_bingo.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Códigos de sala y su clave numérica. Los códigos generados usan 6
+ * caracteres de un alfabeto de 32 sin confusiones (sin 0/O ni 1/I). Cualquier
+ * código alfanumérico ASCII de hasta 12 caracteres, incluidos los que pide el
+ * cliente, se codifica en base 37 biyectiva como un long positivo, único por
+ * código y sin mayúsculas/minúsculas.
+ */
+public final class RoomCodes {
+    public static final int GENERATED_LENGTH = 6;
+    public static final int MAX_LENGTH = 12;
+    static final String ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ";
+    private static final int BITS_PER_CHAR = 5;
+    private static final int RADIX = 37;
+
+    private RoomCodes() {
+    }
+
+    // Clave > 0 del código, o -1 si no es un código válido
+    public static long key(String code) {
+        if (code == null || code.isEmpty() || code.length() > MAX_LENGTH) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < code.length(); i++) {
+            int digit = digit(code.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            key = key * RADIX + digit + 1;
+        }
+        return key;
+    }
+
+    // Solo ASCII: Character.digit acepta también dígitos de otras escrituras y letras de ancho completo
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    // Código aleatorio de 6 caracteres: 30 bits de azar, 5 por carácter
+    public static String random() {
+        int bits = ThreadLocalRandom.current().nextInt(1 << (GENERATED_LENGTH * BITS_PER_CHAR));
+        char[] chars = new char[GENERATED_LENGTH];
+        for (int i = GENERATED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt(bits & ((1 << BITS_PER_CHAR) - 1));
+            bits >>>= BITS_PER_CHAR;
+        }
+        return new String(chars);
+    }
+}
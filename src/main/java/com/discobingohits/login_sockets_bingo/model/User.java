@@ -22,6 +22,7 @@ public class User {
     private String email;
 
     private String role = "ROLE_USER"; // Por defecto
+    // Solo cuentas antiguas: al arrancar se pasa a verification_tokens y se vacía
     private String verificationToken;
     private boolean enabled = false;
 }
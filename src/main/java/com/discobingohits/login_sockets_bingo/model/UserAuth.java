@@ -0,0 +1,5 @@
+package com.discobingohits.login_sockets_bingo.model;
+
+// Lo mínimo de un usuario para el login, sin cargar la entidad completa
+public record UserAuth(Long id, String username, String passwordHash, boolean enabled, String role) {
+}
@@ -0,0 +1,33 @@
+package com.discobingohits.login_sockets_bingo.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+
+// Solo se guarda el SHA-256 del token: el valor en claro viaja únicamente en el email
+@Entity
+@Table(name = "verification_tokens", indexes = {
+        @Index(name = "idx_verification_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_verification_token_expires", columnList = "expiresAt")
+})
+@Getter
+@Setter
+public class VerificationToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    private Date createdAt = new Date();
+
+    @Column(nullable = false)
+    private Date expiresAt;
+}
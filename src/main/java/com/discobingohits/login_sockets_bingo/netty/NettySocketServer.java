@@ -0,0 +1,232 @@
+package com.discobingohits.login_sockets_bingo.netty;
+
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.config.WebSocketConfig;
+import com.discobingohits.login_sockets_bingo.handler.GameWebSocketHandler;
+import com.discobingohits.login_sockets_bingo.protocol.WireFormat;
+import com.discobingohits.login_sockets_bingo.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import jakarta.annotation.PreDestroy;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.WebsocketServerSpec;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.netty.resources.LoopResources;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de sockets alternativo sobre Reactor Netty (app.socket.engine=netty).
+ * Atiende el mismo protocolo en /socket/ws de su propio puerto con unos pocos
+ * hilos de event loop, y entrega cada conexión a GameWebSocketHandler a
+ * través de NettyWebSocketSession, así que salas, difusión y límites son los
+ * mismos que con Tomcat. Los mensajes se procesan fuera del event loop, en
+ * orden por sesión, en un scheduler acotado (o en hilos virtuales si están
+ * activados): el handler toma el monitor de la sala y no debe frenar la E/S
+ * de las demás conexiones. No ofrece SockJS: los clientes deben usar WebSocket.
+ */
+@Component
+@ConditionalOnProperty(name = "app.socket.engine", havingValue = "netty")
+public class NettySocketServer {
+    private static final Logger log = LoggerFactory.getLogger(NettySocketServer.class);
+    private static final String PATH = "/socket/ws";
+
+    private final GameWebSocketHandler handler;
+    private final JwtService jwtService;
+    private final SocketExecutors socketExecutors;
+    private final int port;
+    private final int eventLoopThreads;
+    private final int outboundQueueSize;
+    private final int maxMessageBytes;
+    private final boolean permessageDeflate;
+    private final int dispatchThreads;
+    private final int dispatchQueueSize;
+    private LoopResources loops;
+    private Scheduler dispatchScheduler;
+    private DisposableServer server;
+
+    public NettySocketServer(GameWebSocketHandler handler,
+                             JwtService jwtService,
+                             SocketExecutors socketExecutors,
+                             @Value("${app.socket.netty.port:8081}") int port,
+                             @Value("${app.socket.netty.event-loop-threads:0}") int eventLoopThreads,
+                             @Value("${app.socket.netty.outbound-queue-size:256}") int outboundQueueSize,
+                             @Value("${app.socket.netty.max-message-bytes:65536}") int maxMessageBytes,
+                             @Value("${app.socket.compression.permessage-deflate:true}") boolean permessageDeflate,
+                             @Value("${app.socket.netty.dispatch-threads:0}") int dispatchThreads,
+                             @Value("${app.socket.netty.dispatch-queue-size:100000}") int dispatchQueueSize) {
+        this.handler = handler;
+        this.jwtService = jwtService;
+        this.socketExecutors = socketExecutors;
+        this.port = port;
+        this.eventLoopThreads = eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors();
+        this.outboundQueueSize = outboundQueueSize;
+        this.maxMessageBytes = maxMessageBytes;
+        this.permessageDeflate = permessageDeflate;
+        this.dispatchThreads = dispatchThreads > 0 ? dispatchThreads : Runtime.getRuntime().availableProcessors() * 2;
+        this.dispatchQueueSize = dispatchQueueSize;
+    }
+
+    // Se abre el puerto cuando la aplicación ya está lista (salas recuperadas, clúster arrancado)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatchScheduler = socketExecutors.isVirtualThreads()
+                ? Schedulers.fromExecutor(socketExecutors.getOutboundExecutor())
+                : Schedulers.newBoundedElastic(dispatchThreads, dispatchQueueSize, "socket-dispatch");
+        loops = LoopResources.create("socket-netty", eventLoopThreads, true);
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .route(routes -> routes.get(PATH, this::handshake))
+                .bindNow();
+        log.info("Motor de sockets Netty escuchando en el puerto {}{} con {} hilos", server.port(), PATH, eventLoopThreads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (loops != null) {
+            loops.dispose();
+        }
+        if (dispatchScheduler != null) {
+            dispatchScheduler.dispose();
+        }
+    }
+
+    public int getPort() {
+        return server != null ? server.port() : port;
+    }
+
+    // Las mismas comprobaciones que los interceptores del handshake de Tomcat
+    private Publisher<Void> handshake(HttpServerRequest request, HttpServerResponse response) {
+        String origin = request.requestHeaders().get(HttpHeaderNames.ORIGIN);
+        if (origin != null && !WebSocketConfig.ALLOWED_ORIGINS.contains(origin)) {
+            return response.status(HttpResponseStatus.FORBIDDEN).send();
+        }
+        Map<String, List<String>> params = new QueryStringDecoder(request.uri()).parameters();
+        String token = first(params, "token");
+        if (token == null) {
+            String header = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+            if (header != null && header.startsWith("Bearer ")) {
+                token = header.substring(7);
+            }
+        }
+        Optional<Claims> claims = token != null ? jwtService.verify(token) : Optional.empty();
+        if (claims.isEmpty()) {
+            return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+        }
+
+        WireFormat wireFormat = WireFormat.fromParameter(first(params, "encoding"));
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        attributes.put("username", claims.get().getSubject());
+        attributes.put(WireFormat.ATTRIBUTE, wireFormat);
+
+        // Las sesiones json-deflate ya reciben comprimidos los mensajes grandes
+        WebsocketServerSpec spec = WebsocketServerSpec.builder()
+                .maxFramePayloadLength(maxMessageBytes)
+                .compress(permessageDeflate && wireFormat != WireFormat.JSON_DEFLATE)
+                .build();
+        return response.sendWebsocket((in, out) -> serve(request, attributes, in, out), spec);
+    }
+
+    private Publisher<Void> serve(HttpServerRequest request, Map<String, Object> attributes,
+                                  WebsocketInbound in, WebsocketOutbound out) {
+        HttpHeaders headers = new HttpHeaders();
+        request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+        String host = request.requestHeaders().get(HttpHeaderNames.HOST, "localhost");
+        NettyWebSocketSession session = new NettyWebSocketSession(UUID.randomUUID().toString(),
+                URI.create("ws://" + host + request.uri()), headers, attributes,
+                request.hostAddress(), request.remoteAddress(), out, outboundQueueSize, maxMessageBytes);
+
+        try {
+            handler.afterConnectionEstablished(session);
+        } catch (Exception e) {
+            log.error("Error al abrir la sesión {}", session.getId(), e);
+            session.close(CloseStatus.SERVER_ERROR);
+        }
+
+        in.receiveCloseStatus().subscribe(status -> session.closedByPeer(toCloseStatus(status)));
+        // El frame se copia en el event loop (Netty libera su buffer al volver de onNext);
+        // concatMap no pide el siguiente hasta procesar el anterior, así que se conserva el orden.
+        // Un error de lectura acaba la entrada como un cierre, sin cancelar el mensaje en curso,
+        // y el handler se entera del cierre en el mismo scheduler después del último mensaje
+        Mono<Void> receiving = in.aggregateFrames(maxMessageBytes)
+                .receiveFrames()
+                .map(NettyWebSocketSession::toMessage)
+                .onErrorResume(error -> {
+                    log.debug("Error de lectura en la sesión {}: {}", session.getId(), error.getMessage());
+                    return Flux.empty();
+                })
+                .concatMap(message -> Mono.fromRunnable(() -> dispatch(session, message)).subscribeOn(dispatchScheduler))
+                .then(Mono.<Void>fromRunnable(() -> {
+                    session.closedByPeer(CloseStatus.NO_CLOSE_FRAME);
+                    afterConnectionClosed(session);
+                }).subscribeOn(dispatchScheduler));
+        // Si falla la escritura se cierra la sesión, pero la conexión no termina hasta que lo haga receiving
+        Mono<Void> sending = out.sendObject(session.outboundFrames()).then()
+                .onErrorResume(error -> {
+                    log.debug("Error de escritura en la sesión {}: {}", session.getId(), error.getMessage());
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                    return Mono.empty();
+                });
+        return Mono.when(receiving, sending);
+    }
+
+    private void dispatch(NettyWebSocketSession session, WebSocketMessage<?> message) {
+        if (!session.isOpen()) {
+            return;
+        }
+        try {
+            handler.handleMessage(session, message);
+        } catch (Exception e) {
+            log.error("Error al procesar un mensaje de la sesión {}", session.getId(), e);
+            session.close(CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    private void afterConnectionClosed(NettyWebSocketSession session) {
+        try {
+            handler.afterConnectionClosed(session, session.getCloseStatus());
+        } catch (Exception e) {
+            log.error("Error al cerrar la sesión {}", session.getId(), e);
+        }
+    }
+
+    private static CloseStatus toCloseStatus(WebSocketCloseStatus status) {
+        return new CloseStatus(status.code(), status.reasonText());
+    }
+
+    private static String first(Map<String, List<String>> params, String name) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,223 @@
+package com.discobingohits.login_sockets_bingo.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Adapta una conexión de Reactor Netty a WebSocketSession para que
+ * GameWebSocketHandler y BroadcastEngine la traten como cualquier otra
+ * sesión. sendMessage no escribe en el socket: deja el mensaje en una cola
+ * acotada que Netty consume según la demanda del canal. Si el cliente no lee
+ * y la cola se llena, la sesión se cierra como consumidor lento.
+ */
+public class NettyWebSocketSession implements WebSocketSession {
+    private static final Logger log = LoggerFactory.getLogger(NettyWebSocketSession.class);
+
+    private final String id;
+    private final URI uri;
+    private final HttpHeaders handshakeHeaders;
+    private final Map<String, Object> attributes;
+    private final InetSocketAddress localAddress;
+    private final InetSocketAddress remoteAddress;
+    private final WebsocketOutbound outbound;
+    private final Sinks.Many<WebSocketMessage<?>> sink;
+    private final AtomicReference<CloseStatus> closeStatus = new AtomicReference<>();
+    private int textMessageSizeLimit;
+    private int binaryMessageSizeLimit;
+
+    NettyWebSocketSession(String id, URI uri, HttpHeaders handshakeHeaders, Map<String, Object> attributes,
+                          InetSocketAddress localAddress, InetSocketAddress remoteAddress,
+                          WebsocketOutbound outbound, int outboundQueueSize, int messageSizeLimit) {
+        this.id = id;
+        this.uri = uri;
+        this.handshakeHeaders = handshakeHeaders;
+        this.attributes = attributes;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
+        this.outbound = outbound;
+        this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<WebSocketMessage<?>>get(outboundQueueSize).get());
+        this.textMessageSizeLimit = messageSizeLimit;
+        this.binaryMessageSizeLimit = messageSizeLimit;
+    }
+
+    // Frames pendientes de escribir; Netty los pide a medida que el canal admite más
+    Flux<WebSocketFrame> outboundFrames() {
+        return sink.asFlux().map(NettyWebSocketSession::toFrame);
+    }
+
+    static WebSocketMessage<?> toMessage(WebSocketFrame frame) {
+        if (frame instanceof TextWebSocketFrame text) {
+            return new TextMessage(text.text());
+        }
+        byte[] payload = new byte[frame.content().readableBytes()];
+        frame.content().getBytes(frame.content().readerIndex(), payload);
+        if (frame instanceof PingWebSocketFrame) {
+            return new PingMessage(ByteBuffer.wrap(payload));
+        }
+        if (frame instanceof PongWebSocketFrame) {
+            return new PongMessage(ByteBuffer.wrap(payload));
+        }
+        return new BinaryMessage(payload);
+    }
+
+    // El payload binario se comparte entre destinatarios: se envuelve una vista, sin copiar
+    private static WebSocketFrame toFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return new TextWebSocketFrame(text.getPayload());
+        }
+        if (message instanceof BinaryMessage binary) {
+            return new BinaryWebSocketFrame(Unpooled.wrappedBuffer(binary.getPayload().duplicate()));
+        }
+        if (message instanceof PingMessage ping) {
+            return new PingWebSocketFrame(Unpooled.wrappedBuffer(ping.getPayload().duplicate()));
+        }
+        return new PongWebSocketFrame(Unpooled.wrappedBuffer(((PongMessage) message).getPayload().duplicate()));
+    }
+
+    // El cliente cerró o se cortó la conexión
+    void closedByPeer(CloseStatus status) {
+        if (closeStatus.compareAndSet(null, status)) {
+            completeOutbound();
+        }
+    }
+
+    CloseStatus getCloseStatus() {
+        CloseStatus status = closeStatus.get();
+        return status != null ? status : CloseStatus.NO_STATUS_CODE;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return handshakeHeaders;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+        this.textMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return textMessageSizeLimit;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        this.binaryMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return binaryMessageSizeLimit;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        Sinks.EmitResult result;
+        synchronized (sink) {
+            result = sink.tryEmitNext(message);
+        }
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            log.warn("Sesión {} cerrada: cola de salida llena", id);
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            throw new IOException("Cola de salida llena");
+        }
+        if (result.isFailure()) {
+            throw new IOException("Sesión cerrada (" + result + ")");
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return closeStatus.get() == null;
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        if (!closeStatus.compareAndSet(null, status)) {
+            return;
+        }
+        completeOutbound();
+        outbound.sendClose(status.getCode(), status.getReason()).subscribe(null,
+                error -> log.debug("Error al cerrar la sesión {}: {}", id, error.getMessage()));
+    }
+
+    private void completeOutbound() {
+        synchronized (sink) {
+            sink.tryEmitComplete();
+        }
+    }
+}
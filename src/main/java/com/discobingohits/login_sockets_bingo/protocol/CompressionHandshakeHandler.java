@@ -0,0 +1,46 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * Decide si se acepta la extensión permessage-deflate que ofrece el cliente.
+ * El contenedor comprime cada mensaje por separado para cada sesión, así que
+ * no se acepta en las sesiones json-deflate, que ya reciben comprimidos los
+ * mensajes grandes (y comprimidos una sola vez por difusión).
+ */
+@Component
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean permessageDeflate;
+
+    public CompressionHandshakeHandler(@Value("${app.socket.compression.permessage-deflate:true}") boolean permessageDeflate) {
+        this.permessageDeflate = permessageDeflate;
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (permessageDeflate && wireFormat(request) != WireFormat.JSON_DEFLATE) {
+            return extensions;
+        }
+        return extensions.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
+
+    private static WireFormat wireFormat(ServerHttpRequest request) {
+        String encoding = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst("encoding");
+        return WireFormat.fromParameter(encoding);
+    }
+}
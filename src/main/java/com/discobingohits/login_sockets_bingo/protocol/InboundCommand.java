@@ -0,0 +1,62 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import lombok.Getter;
+
+/**
+ * Mensaje entrante ya decodificado. Cada hilo reutiliza la misma instancia, así
+ * que no debe guardarse fuera del manejo del mensaje: lo que haga falta más
+ * tarde se copia. category y songData se conservan como JSON sin interpretar.
+ */
+@Getter
+public class InboundCommand {
+    InboundEvent event;
+    String roomCode;
+    String messageId;
+    String name;
+    String playerName;
+    String difficulty;
+    String category;
+    String songData;
+    long rosterVersion = -1;
+    Integer maxPlayers;
+    boolean hasConfig;
+    String configRoomCode;
+    String configDifficulty;
+    Integer configMaxPlayers;
+
+    void reset() {
+        event = null;
+        roomCode = null;
+        messageId = null;
+        name = null;
+        playerName = null;
+        difficulty = null;
+        category = null;
+        songData = null;
+        rosterVersion = -1;
+        maxPlayers = null;
+        hasConfig = false;
+        configRoomCode = null;
+        configDifficulty = null;
+        configMaxPlayers = null;
+    }
+
+    // Igual que antes: si llega "config" se usa ese objeto y si no los campos de data
+    public GameConfig toGameConfig() {
+        GameConfig config = new GameConfig();
+        String code = hasConfig ? configRoomCode : roomCode;
+        String configuredDifficulty = hasConfig ? configDifficulty : difficulty;
+        Integer configuredMaxPlayers = hasConfig ? configMaxPlayers : maxPlayers;
+        config.setRoomCode(code);
+        config.setDifficulty(configuredDifficulty);
+        if (configuredMaxPlayers != null) {
+            config.setMaxPlayers(configuredMaxPlayers);
+        }
+        return config;
+    }
+
+    public String getRequestedRoomCode() {
+        return hasConfig ? configRoomCode : roomCode;
+    }
+}
@@ -0,0 +1,150 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+
+/**
+ * Lee el sobre {"event": ..., "data": {...}} (JSON o CBOR) con un JsonParser en
+ * streaming y vuelca los campos conocidos en un InboundCommand reutilizado por
+ * hilo, sin construir el árbol JsonNode. Los campos desconocidos se saltan.
+ */
+@Component
+public class InboundDecoder {
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final ThreadLocal<InboundCommand> commands = ThreadLocal.withInitial(InboundCommand::new);
+
+    public InboundCommand decode(String payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            return decode(parser, payload);
+        }
+    }
+
+    // Frames binarios: siempre CBOR
+    public InboundCommand decode(ByteBuffer payload) throws IOException {
+        byte[] bytes;
+        int offset;
+        if (payload.hasArray()) {
+            bytes = payload.array();
+            offset = payload.arrayOffset() + payload.position();
+        } else {
+            bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            offset = 0;
+        }
+        try (JsonParser parser = cborFactory.createParser(bytes, offset, payload.remaining())) {
+            return decode(parser, null);
+        }
+    }
+
+    private InboundCommand decode(JsonParser parser, String payload) throws IOException {
+        InboundCommand command = commands.get();
+        command.reset();
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return command;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("event".equals(field)) {
+                command.event = value == JsonToken.VALUE_STRING ? InboundEvent.fromName(parser.getText()) : null;
+            } else if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                readData(parser, payload, command);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return command;
+    }
+
+    private void readData(JsonParser parser, String payload, InboundCommand command) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "roomCode" -> command.roomCode = text(parser, value);
+                case "messageId" -> command.messageId = text(parser, value);
+                case "name" -> command.name = text(parser, value);
+                case "playerName" -> command.playerName = text(parser, value);
+                case "difficulty" -> command.difficulty = text(parser, value);
+                case "maxPlayers" -> command.maxPlayers = integer(parser, value);
+                case "rosterVersion" -> command.rosterVersion = value.isNumeric() ? parser.getLongValue() : -1;
+                case "category" -> command.category = raw(parser, payload);
+                case "songData" -> command.songData = raw(parser, payload);
+                case "config" -> readConfig(parser, value, command);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readConfig(JsonParser parser, JsonToken value, InboundCommand command) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        command.hasConfig = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken configValue = parser.nextToken();
+            switch (field) {
+                case "roomCode" -> command.configRoomCode = text(parser, configValue);
+                case "difficulty" -> command.configDifficulty = text(parser, configValue);
+                case "maxPlayers" -> command.configMaxPlayers = integer(parser, configValue);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    // Un valor que no es un entero de 32 bits se trata como ausente: no debe cerrar la sesión
+    private Integer integer(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberType() == JsonParser.NumberType.INT ? parser.getIntValue() : null;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.valueOf(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    // Devuelve el fragmento JSON tal cual llegó, recortando el payload original.
+    // Si el frame era CBOR se transcodifica a JSON en streaming.
+    private String raw(JsonParser parser, String payload) throws IOException {
+        if (payload == null) {
+            StringWriter json = new StringWriter();
+            try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return json.toString();
+        }
+        int start = (int) parser.currentTokenLocation().getCharOffset();
+        parser.skipChildren();
+        parser.finishToken();
+        int end = (int) parser.currentLocation().getCharOffset();
+        return payload.substring(start, end);
+    }
+}
@@ -0,0 +1,40 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public enum InboundEvent {
+    CHECK_ROOM("checkRoom"),
+    CREATE_ROOM("createRoom"),
+    JOIN_ROOM("joinRoom"),
+    PLAYER_READY("playerReady"),
+    SYNC_ROSTER("syncRoster"),
+    START_GAME("startGame"),
+    SELECT_CATEGORY("selectCategory"),
+    REVEAL_SONG("revealSong"),
+    ENABLE_MARKING("enableMarking"),
+    DISABLE_MARKING("disableMarking"),
+    WINNER("winner");
+
+    private static final Map<String, InboundEvent> BY_NAME = new HashMap<>();
+
+    static {
+        for (InboundEvent event : values()) {
+            BY_NAME.put(event.eventName, event);
+        }
+    }
+
+    private final String eventName;
+
+    InboundEvent(String eventName) {
+        this.eventName = eventName;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public static InboundEvent fromName(String name) {
+        return BY_NAME.get(name);
+    }
+}
@@ -0,0 +1,16 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+
+@Getter
+public abstract class OutboundEvent {
+    private final String event;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String messageId;
+
+    protected OutboundEvent(String event, String messageId) {
+        this.event = event;
+        this.messageId = messageId;
+    }
+}
@@ -0,0 +1,197 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Eventos que el servidor envía a los clientes. config, gameState, category y
+ * songData llegan ya codificados como RawJson para no serializarlos otra vez.
+ */
+public final class OutboundEvents {
+
+    private OutboundEvents() {
+    }
+
+    // Eventos sin más datos que el nombre: hostDisconnected, roomExpired, markingEnabled, markingDisabled
+    public static final class Notice extends OutboundEvent {
+        public Notice(String event, String messageId) {
+            super(event, messageId);
+        }
+    }
+
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class RoomStatus extends OutboundEvent {
+        private final boolean exists;
+        private final String phase;
+        private final Integer playerCount;
+        private final Integer maxPlayers;
+
+        public RoomStatus(boolean exists, String phase, Integer playerCount, Integer maxPlayers, String messageId) {
+            super("roomStatus", messageId);
+            this.exists = exists;
+            this.phase = phase;
+            this.playerCount = playerCount;
+            this.maxPlayers = maxPlayers;
+        }
+    }
+
+    @Getter
+    public static final class RoomCreated extends OutboundEvent {
+        private final String roomCode;
+        private final List<Player> players;
+        private final RawJson config;
+
+        public RoomCreated(String roomCode, List<Player> players, RawJson config, String messageId) {
+            super("roomCreated", messageId);
+            this.roomCode = roomCode;
+            this.players = players;
+            this.config = config;
+        }
+    }
+
+    @Getter
+    public static final class RoomJoined extends OutboundEvent {
+        private final String roomCode;
+        private final List<Player> players;
+        private final long rosterVersion;
+        private final RawJson config;
+        private final String phase;
+        private final String currentCategory;
+        private final RawJson gameState;
+        @JsonProperty("isReconnecting")
+        private final boolean reconnecting;
+
+        public RoomJoined(String roomCode, List<Player> players, long rosterVersion, RawJson config, String phase,
+                          String currentCategory, RawJson gameState, boolean reconnecting, String messageId) {
+            super("roomJoined", messageId);
+            this.roomCode = roomCode;
+            this.players = players;
+            this.rosterVersion = rosterVersion;
+            this.config = config;
+            this.phase = phase;
+            this.currentCategory = currentCategory;
+            this.gameState = gameState;
+            this.reconnecting = reconnecting;
+        }
+    }
+
+    // playerAdded, playerChanged y playerRemoved
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class RosterDelta extends OutboundEvent {
+        private final Player player;
+        private final String playerId;
+        private final String previousId;
+        private final long rosterVersion;
+
+        private RosterDelta(String event, Player player, String playerId, String previousId, long rosterVersion, String messageId) {
+            super(event, messageId);
+            this.player = player;
+            this.playerId = playerId;
+            this.previousId = previousId;
+            this.rosterVersion = rosterVersion;
+        }
+
+        public static RosterDelta added(Player player, long rosterVersion) {
+            return new RosterDelta("playerAdded", player, null, null, rosterVersion, null);
+        }
+
+        public static RosterDelta changed(Player player, String previousId, long rosterVersion, String messageId) {
+            return new RosterDelta("playerChanged", player, null, previousId, rosterVersion, messageId);
+        }
+
+        public static RosterDelta removed(String playerId, long rosterVersion) {
+            return new RosterDelta("playerRemoved", null, playerId, null, rosterVersion, null);
+        }
+    }
+
+    @Getter
+    public static final class PlayersUpdate extends OutboundEvent {
+        private final List<Player> players;
+        private final long rosterVersion;
+
+        public PlayersUpdate(List<Player> players, long rosterVersion, String messageId) {
+            super("playersUpdate", messageId);
+            this.players = players;
+            this.rosterVersion = rosterVersion;
+        }
+    }
+
+    @Getter
+    public static final class GameStarted extends OutboundEvent {
+        private final String difficulty;
+        private final List<Player> players;
+        private final long rosterVersion;
+        private final RawJson gameState;
+        private final String phase;
+
+        public GameStarted(String difficulty, List<Player> players, long rosterVersion, RawJson gameState,
+                           String phase, String messageId) {
+            super("gameStarted", messageId);
+            this.difficulty = difficulty;
+            this.players = players;
+            this.rosterVersion = rosterVersion;
+            this.gameState = gameState;
+            this.phase = phase;
+        }
+    }
+
+    @Getter
+    public static final class CategorySelected extends OutboundEvent {
+        private final RawJson category;
+
+        public CategorySelected(RawJson category, String messageId) {
+            super("categorySelected", messageId);
+            this.category = category;
+        }
+    }
+
+    @Getter
+    public static final class SongRevealed extends OutboundEvent {
+        private final RawJson songData;
+
+        public SongRevealed(RawJson songData, String messageId) {
+            super("songRevealed", messageId);
+            this.songData = songData;
+        }
+    }
+
+    @Getter
+    public static final class GameWinner extends OutboundEvent {
+        private final String playerName;
+
+        public GameWinner(String playerName, String messageId) {
+            super("gameWinner", messageId);
+            this.playerName = playerName;
+        }
+    }
+
+    // Varios eventos de una sala agrupados en un solo frame (ver app.socket.coalesce), en orden
+    @Getter
+    public static final class Batch extends OutboundEvent {
+        private final List<OutboundEvent> events;
+
+        public Batch(List<OutboundEvent> events) {
+            super("batch", null);
+            this.events = events;
+        }
+    }
+
+    @Getter
+    public static final class ErrorMessage extends OutboundEvent {
+        private final String message;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private final String code;
+
+        public ErrorMessage(String message, String code, String messageId) {
+            super("error", messageId);
+            this.message = message;
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.IOException;
+
+/**
+ * Un evento saliente listo para difundir. Se codifica como mucho una vez por
+ * formato y el mismo mensaje se comparte entre todos los destinatarios. Se
+ * usa desde el hilo que difunde, por eso no necesita sincronización.
+ */
+public final class OutboundFrame {
+    private final OutboundEvent event;
+    private final RawJson encoded;
+    private final OutboundWriter writer;
+    private WebSocketMessage<?> json;
+    private WebSocketMessage<?> cbor;
+    private WebSocketMessage<?> deflated;
+
+    OutboundFrame(OutboundEvent event, OutboundWriter writer) {
+        this.event = event;
+        this.encoded = null;
+        this.writer = writer;
+    }
+
+    // Evento que ya llega serializado en JSON (p. ej. reenviado desde otro nodo)
+    OutboundFrame(RawJson encoded, OutboundWriter writer) {
+        this.event = null;
+        this.encoded = encoded;
+        this.writer = writer;
+    }
+
+    public OutboundEvent getEvent() {
+        return event;
+    }
+
+    public WebSocketMessage<?> encode(WireFormat format) throws IOException {
+        // Se comprime el JSON ya codificado, una vez para todos los destinatarios
+        if (format == WireFormat.JSON_DEFLATE) {
+            if (deflated == null) {
+                deflated = writer.deflate((TextMessage) encode(WireFormat.JSON));
+            }
+            return deflated;
+        }
+        if (format == WireFormat.CBOR) {
+            if (cbor == null) {
+                cbor = encoded != null ? writer.encode(encoded, WireFormat.CBOR) : writer.encode(event, WireFormat.CBOR);
+            }
+            return cbor;
+        }
+        if (json == null) {
+            json = encoded != null ? writer.encode(encoded, WireFormat.JSON) : writer.encode(event, WireFormat.JSON);
+        }
+        return json;
+    }
+}
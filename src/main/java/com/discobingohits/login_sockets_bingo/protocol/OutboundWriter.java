@@ -0,0 +1,152 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.GameState;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Serializa los eventos salientes con un ObjectWriter ya resuelto por tipo y
+ * formato, y mantiene la config y el GameState de cada sala precodificados
+ * hasta que cambian. En las sesiones json-deflate los mensajes a partir de
+ * app.socket.compression.min-bytes se envían comprimidos.
+ */
+@Component
+public class OutboundWriter {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new CBORMapper();
+    private final ObjectWriter configWriter = objectMapper.writerFor(GameConfig.class);
+    private final ObjectWriter gameStateWriter = objectMapper.writerFor(GameState.class);
+    private final ClassValue<ObjectWriter> jsonWriters = writersFor(objectMapper);
+    private final ClassValue<ObjectWriter> cborWriters = writersFor(cborMapper);
+    // Deflaters reutilizables: cada uno reserva memoria nativa que solo libera end().
+    // Lo que no cabe en el pool se libera al momento en lugar de esperar al GC
+    private final BlockingQueue<Deflater> deflaters =
+            new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+    private final int minDeflateBytes;
+
+    public OutboundWriter() {
+        this(1024);
+    }
+
+    @Autowired
+    public OutboundWriter(@Value("${app.socket.compression.min-bytes:1024}") int minDeflateBytes) {
+        this.minDeflateBytes = minDeflateBytes;
+    }
+
+    private static ClassValue<ObjectWriter> writersFor(ObjectMapper mapper) {
+        return new ClassValue<>() {
+            @Override
+            protected ObjectWriter computeValue(Class<?> type) {
+                return mapper.writerFor(type);
+            }
+        };
+    }
+
+    public OutboundFrame frame(OutboundEvent event) {
+        return new OutboundFrame(event, this);
+    }
+
+    public OutboundFrame frame(RawJson encoded) {
+        return new OutboundFrame(encoded, this);
+    }
+
+    public String write(OutboundEvent event) throws JsonProcessingException {
+        return jsonWriters.get(event.getClass()).writeValueAsString(event);
+    }
+
+    public WebSocketMessage<?> encode(OutboundEvent event, WireFormat format) throws JsonProcessingException {
+        if (format == WireFormat.CBOR) {
+            return new BinaryMessage(cborWriters.get(event.getClass()).writeValueAsBytes(event));
+        }
+        TextMessage json = new TextMessage(write(event));
+        return format == WireFormat.JSON_DEFLATE ? deflate(json) : json;
+    }
+
+    public WebSocketMessage<?> encode(RawJson encoded, WireFormat format) throws JsonProcessingException {
+        if (format == WireFormat.CBOR) {
+            return new BinaryMessage(cborMapper.writeValueAsBytes(encoded));
+        }
+        TextMessage json = new TextMessage(encoded.getJson());
+        return format == WireFormat.JSON_DEFLATE ? deflate(json) : json;
+    }
+
+    // Por debajo del umbral, o si no reduce el tamaño, el mensaje sale tal cual en texto
+    public WebSocketMessage<?> deflate(TextMessage json) {
+        byte[] input = json.asBytes();
+        if (input.length < minDeflateBytes) {
+            return json;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2);
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                output.write(buffer, 0, length);
+            }
+        } finally {
+            release(deflater);
+        }
+        if (output.size() >= input.length) {
+            return json;
+        }
+        return new BinaryMessage(output.toByteArray());
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    public RawJson encodedConfig(GameRoom room) throws JsonProcessingException {
+        String encoded = room.getEncodedConfig();
+        if (encoded == null) {
+            encoded = configWriter.writeValueAsString(room.getConfig());
+            room.setEncodedConfig(encoded);
+        }
+        return new RawJson(encoded);
+    }
+
+    public RawJson encodedGameState(GameRoom room) throws JsonProcessingException {
+        if (room.getGameState() == null) {
+            return null;
+        }
+        String encoded = room.getEncodedGameState();
+        if (encoded == null) {
+            encoded = gameStateWriter.writeValueAsString(room.getGameState());
+            room.setEncodedGameState(encoded);
+        }
+        return new RawJson(encoded);
+    }
+}
@@ -0,0 +1,29 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+public enum WireFormat {
+    JSON,
+    CBOR,
+    // JSON en texto, salvo los frames grandes, que van en binario comprimidos con DEFLATE sin cabecera (RFC 1951)
+    JSON_DEFLATE;
+
+    public static final String ATTRIBUTE = "wireFormat";
+
+    // SockJS solo transporta texto, así que esas sesiones siempre usan JSON
+    public static WireFormat of(WebSocketSession session) {
+        if (session instanceof SockJsSession) {
+            return JSON;
+        }
+        Object format = session.getAttributes().get(ATTRIBUTE);
+        return format instanceof WireFormat wireFormat ? wireFormat : JSON;
+    }
+
+    public static WireFormat fromParameter(String value) {
+        if ("cbor".equalsIgnoreCase(value)) {
+            return CBOR;
+        }
+        return "json-deflate".equalsIgnoreCase(value) ? JSON_DEFLATE : JSON;
+    }
+}
@@ -0,0 +1,33 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Elige el formato de la conexión según el parámetro "encoding" del handshake
+ * (json por defecto, cbor para frames binarios, json-deflate para comprimir
+ * los mensajes grandes en la aplicación).
+ */
+@Component
+public class WireFormatNegotiator implements HandshakeInterceptor {
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String encoding = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst("encoding");
+        attributes.put(WireFormat.ATTRIBUTE, WireFormat.fromParameter(encoding));
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.discobingohits.login_sockets_bingo.repository;
+
+import com.discobingohits.login_sockets_bingo.model.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    @Query("select e.id from EmailOutbox e where e.status = :status and e.nextAttemptAt <= :now order by e.id")
+    List<Long> findDueIds(EmailOutbox.Status status, Date now, Pageable page);
+
+    // Solo se reclaman las filas que siguen vencidas: si otro nodo se adelantó, su UPDATE ya las movió
+    @Modifying
+    @Query("update EmailOutbox e set e.claimedBy = :claim, e.nextAttemptAt = :leaseUntil"
+            + " where e.id in :ids and e.status = :status and e.nextAttemptAt <= :now")
+    int claim(Collection<Long> ids, EmailOutbox.Status status, Date now, String claim, Date leaseUntil);
+
+    List<EmailOutbox> findByClaimedByOrderByIdAsc(String claim);
+    Optional<EmailOutbox> findFirstByStatusOrderByIdAsc(EmailOutbox.Status status);
+    long countByStatus(EmailOutbox.Status status);
+}
@@ -1,13 +1,54 @@
 package com.discobingohits.login_sockets_bingo.repository;
 
 import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.model.UserAuth;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
-    Optional<User> findByVerificationToken(String token);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Query("select new com.discobingohits.login_sockets_bingo.model.UserAuth(u.id, u.username, u.password, u.enabled, u.role)"
+            + " from User u where u.username = :username")
+    Optional<UserAuth> findAuthByUsername(String username);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(Long id, String password);
+
+    // Cuentas sin verificar cuyo último token ya se ha purgado
+    @Modifying
+    @Query("delete from User u where u.id in :ids and u.enabled = false"
+            + " and not exists (select t.id from VerificationToken t where t.user = u)")
+    int deleteUnverified(Collection<Long> ids);
+
+    // Cuentas antiguas con el token aún en users.verificationToken, para pasarlas a verification_tokens
+    @Query("select u from User u where u.verificationToken is not null")
+    List<User> findLegacyVerificationTokens(Pageable page);
+
+    // Solo los campos únicos y por lotes, para cargar el índice de disponibilidad sin traer entidades
+    @Query("select u.username as username, u.email as email from User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<UniqueKeys> streamUniqueKeys();
+
+    interface UniqueKeys {
+        String getUsername();
+
+        String getEmail();
+    }
 }
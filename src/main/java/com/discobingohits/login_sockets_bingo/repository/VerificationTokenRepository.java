@@ -0,0 +1,21 @@
+package com.discobingohits.login_sockets_bingo.repository;
+
+import com.discobingohits.login_sockets_bingo.model.VerificationToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface VerificationTokenRepository extends JpaRepository<VerificationToken, Long> {
+    Optional<VerificationToken> findByTokenHash(String tokenHash);
+
+    @Query("select t.id from VerificationToken t where t.expiresAt < :now order by t.expiresAt")
+    List<Long> findExpiredIds(Date now, Pageable page);
+
+    @Query("select distinct t.user.id from VerificationToken t where t.id in :ids")
+    List<Long> findUserIds(Collection<Long> ids);
+}
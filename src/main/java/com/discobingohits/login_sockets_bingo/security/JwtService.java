@@ -1,39 +1,121 @@
 package com.discobingohits.login_sockets_bingo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.cglib.core.internal.Function;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 public class JwtService {
     private static final String SECRET_KEY = "tu_clave_secreta_muy_larga_y_segura_de_al_menos_256_bits";
     private static final long EXPIRATION_TIME = 864_000_000; // 10 días
 
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    // Tokens ya verificados; cada entrada caduca como muy tarde con el exp del token
+    private final Cache<String, Claims> verifiedTokens;
+    private final Timer cachedVerifyTimer;
+    private final Timer validVerifyTimer;
+    private final Timer invalidVerifyTimer;
+
+    public JwtService(@Value("${app.jwt.cache.max-size:10000}") long cacheMaxSize,
+                      @Value("${app.jwt.cache.ttl-seconds:600}") long cacheTtlSeconds,
+                      MeterRegistry meterRegistry) {
+        this.cachedVerifyTimer = verifyTimer("hit", "valid", meterRegistry);
+        this.validVerifyTimer = verifyTimer("miss", "valid", meterRegistry);
+        this.invalidVerifyTimer = verifyTimer("miss", "invalid", meterRegistry);
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(cacheTtlSeconds);
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if (expiration == null) {
+                            return maxTtlNanos;
+                        }
+                        long remaining = TimeUnit.MILLISECONDS.toNanos(expiration.getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(remaining, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private static Timer verifyTimer(String cache, String result, MeterRegistry meterRegistry) {
+        return Timer.builder("bingo.auth.jwt.verify")
+                .description("Tiempo de verificación de un JWT")
+                .tag("cache", cache)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     public String generateToken(String username) {
+        return generateToken(username, EXPIRATION_TIME);
+    }
+
+    // Los tests lo usan para emitir tokens que caducan en segundos
+    String generateToken(String username, long validityMillis) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username);
+        return createToken(claims, username, validityMillis);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, long validityMillis) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + validityMillis))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = SECRET_KEY.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifica firma y caducidad una sola vez y devuelve los claims. Los
+     * claims devueltos se comparten entre llamadas: no deben modificarse.
+     */
+    public Optional<Claims> verify(String token) {
+        long startedAt = System.nanoTime();
+        Claims claims = verifiedTokens.getIfPresent(token);
+        if (claims != null) {
+            cachedVerifyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Optional.of(claims);
+        }
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidVerifyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+        verifiedTokens.put(token, claims);
+        validVerifyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        return Optional.of(claims);
     }
 
     public String extractUsername(String token) {
@@ -50,23 +132,11 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        Claims claims = verifiedTokens.getIfPresent(token);
+        return claims != null ? claims : parser.parseClaimsJws(token).getBody();
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
-}
\ No newline at end of file
+}
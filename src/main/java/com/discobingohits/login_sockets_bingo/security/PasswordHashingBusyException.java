@@ -0,0 +1,7 @@
+package com.discobingohits.login_sockets_bingo.security;
+
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException() {
+        super("Servidor ocupado, inténtalo de nuevo en unos segundos");
+    }
+}
@@ -1,5 +1,6 @@
 package com.discobingohits.login_sockets_bingo.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -9,6 +10,7 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class WebSocketAuthInterceptor implements HandshakeInterceptor {
@@ -25,9 +27,9 @@ public class WebSocketAuthInterceptor implements HandshakeInterceptor {
             ServletServerHttpRequest servletRequest = (ServletServerHttpRequest) request;
             String token = extractToken(servletRequest.getServletRequest());
 
-            if (token != null && jwtService.validateToken(token)) {
-                String username = jwtService.extractUsername(token);
-                attributes.put("username", username);
+            Optional<Claims> claims = token != null ? jwtService.verify(token) : Optional.empty();
+            if (claims.isPresent()) {
+                attributes.put("username", claims.get().getSubject());
                 return true;
             }
         }
@@ -51,10 +53,6 @@ public class WebSocketAuthInterceptor implements HandshakeInterceptor {
         if (header != null && header.startsWith("Bearer ")) {
             token = header.substring(7);
         }
-
-        // Imprimir para debug
-        System.out.println("Token extraído: " + token);
-
         return token;
     }
 }
@@ -4,51 +4,126 @@ import com.discobingohits.login_sockets_bingo.dto.AuthRequest;
 import com.discobingohits.login_sockets_bingo.dto.AuthResponse;
 import com.discobingohits.login_sockets_bingo.dto.RegisterRequest;
 import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.model.UserAuth;
 import com.discobingohits.login_sockets_bingo.repository.UserRepository;
 import com.discobingohits.login_sockets_bingo.security.JwtService;
-import lombok.RequiredArgsConstructor;
+import com.discobingohits.login_sockets_bingo.security.PasswordHashingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
-@RequiredArgsConstructor
 public class AuthService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
     private final JwtService jwtService;
     private final EmailService emailService;
+    private final AvailabilityIndex availabilityIndex;
+    private final UserAuthCache userAuthCache;
+    private final VerificationTokenService verificationTokens;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer registerTimer;
+    private final Timer loginTimer;
 
     @Value("${app.frontend-url}")
     private String frontendUrl;
 
+    public AuthService(UserRepository userRepository,
+                       PasswordHashingService passwordHashing,
+                       JwtService jwtService,
+                       EmailService emailService,
+                       AvailabilityIndex availabilityIndex,
+                       UserAuthCache userAuthCache,
+                       VerificationTokenService verificationTokens,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.passwordHashing = passwordHashing;
+        this.jwtService = jwtService;
+        this.emailService = emailService;
+        this.availabilityIndex = availabilityIndex;
+        this.userAuthCache = userAuthCache;
+        this.verificationTokens = verificationTokens;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.registerTimer = requestTimer("register", "ok");
+        this.loginTimer = requestTimer("login", "ok");
+    }
+
+    // Los fallos se etiquetan con el tipo de excepción, que es un conjunto cerrado
+    private Timer requestTimer(String operation, String outcome) {
+        return Timer.builder("bingo.auth.request")
+                .description("Duración completa de registro y login, BCrypt incluido")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private <T> T timed(String operation, Timer okTimer, Supplier<T> action) {
+        long startedAt = System.nanoTime();
+        try {
+            T result = action.get();
+            okTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            requestTimer(operation, e.getClass().getSimpleName())
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
     public AuthResponse register(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
+        return timed("register", registerTimer, () -> doRegister(request));
+    }
+
+    private AuthResponse doRegister(RegisterRequest request) {
+        // El índice evita las consultas cuando el nombre y el email no se han visto nunca
+        if (!availabilityIndex.isUsernameAvailable(request.getUsername())) {
             throw new RuntimeException("Username already exists");
         }
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (!availabilityIndex.isEmailAvailable(request.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
 
+        // El hash se calcula fuera de la transacción para no retener la conexión
+        String passwordHash = passwordHashing.encode(request.getPassword());
+
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setVerificationToken(UUID.randomUUID().toString());
+        user.setPassword(passwordHash);
         user.setEnabled(false);
 
-        userRepository.save(user);
-
-        // Enviar email de verificación
-        String verificationLink = frontendUrl + "/verify/" + user.getVerificationToken();
-        emailService.sendVerificationEmail(
-                user.getEmail(),
-                "Verifica tu cuenta en Bingo",
-                "Por favor, verifica tu cuenta haciendo click en el siguiente enlace: " + verificationLink
-        );
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.save(user);
+                String token = verificationTokens.issue(user);
+
+                // Email de verificación: se encola en la misma transacción y se envía en segundo plano
+                String verificationLink = frontendUrl + "/verify/" + token;
+                emailService.queueVerificationEmail(
+                        user.getEmail(),
+                        "Verifica tu cuenta en Bingo",
+                        "Por favor, verifica tu cuenta haciendo click en el siguiente enlace: " + verificationLink
+                );
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Alta simultánea, o hecha en otro nodo después de la última carga del índice
+            if (userRepository.existsByUsername(request.getUsername())) {
+                throw new RuntimeException("Username already exists");
+            }
+            throw new RuntimeException("Email already exists");
+        }
+        availabilityIndex.add(user.getUsername(), user.getEmail());
 
         // No devolvemos token hasta que verifique el email
         AuthResponse response = new AuthResponse();
@@ -56,32 +131,46 @@ public class AuthService {
         return response;
     }
 
-    public void verifyEmail(String token) {
-        User user = userRepository.findByVerificationToken(token)
-                .orElseThrow(() -> new RuntimeException("Token inválido"));
+    public boolean isUsernameAvailable(String username) {
+        return availabilityIndex.isUsernameAvailable(username);
+    }
 
-        user.setEnabled(true);
-        user.setVerificationToken(null);
-        userRepository.save(user);
+    public boolean isEmailAvailable(String email) {
+        return availabilityIndex.isEmailAvailable(email);
+    }
+
+    public void verifyEmail(String token) {
+        String username = verificationTokens.verify(token);
+        userAuthCache.invalidate(username);
     }
 
     public AuthResponse login(AuthRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
+        return timed("login", loginTimer, () -> doLogin(request));
+    }
+
+    private AuthResponse doLogin(AuthRequest request) {
+        UserAuth user = userAuthCache.find(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        if (!user.isEnabled()) {
+        if (!user.enabled()) {
             throw new RuntimeException("Por favor verifica tu email antes de iniciar sesión");
         }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashing.matches(request.getPassword(), user.passwordHash())) {
             throw new RuntimeException("Contraseña incorrecta");
         }
 
-        String token = jwtService.generateToken(user.getUsername());
+        // Si ha cambiado el coste de BCrypt se aprovecha el login para rehacer el hash
+        if (passwordHashing.needsRehash(user.passwordHash())) {
+            userRepository.updatePassword(user.id(), passwordHashing.encode(request.getPassword()));
+            userAuthCache.invalidate(user.username());
+        }
+
+        String token = jwtService.generateToken(user.username());
 
         AuthResponse response = new AuthResponse();
         response.setToken(token);
-        response.setUsername(user.getUsername());
+        response.setUsername(user.username());
         return response;
     }
 }
\ No newline at end of file
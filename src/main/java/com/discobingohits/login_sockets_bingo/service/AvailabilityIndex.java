@@ -0,0 +1,153 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Filtros de Bloom con los usernames y emails ya registrados. Si el filtro
+ * dice que un valor no está, está libre seguro y no se consulta la base de
+ * datos; solo los "quizá ocupado" llegan a existsBy*. Se construye al
+ * arrancar recorriendo la tabla en streaming y se reconstruye cada cierto
+ * tiempo para recoger los registros de otros nodos y redimensionarse.
+ * Los valores entran y se buscan normalizados (sin espacios alrededor y en
+ * minúsculas), así que variantes de mayúsculas de un valor registrado dan
+ * "quizá ocupado" y la decisión final es siempre la de la base de datos.
+ */
+@Service
+public class AvailabilityIndex {
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+    }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long minCapacity;
+    private final double falsePositiveRate;
+    // null hasta la primera carga: mientras tanto todo se consulta en la base de datos
+    private volatile Filters filters;
+    // Filtros en construcción; los registros que llegan durante la carga se anotan también aquí
+    private volatile Filters building;
+    private final Counter usernameAbsent;
+    private final Counter usernameTaken;
+    private final Counter usernameFalsePositive;
+    private final Counter emailAbsent;
+    private final Counter emailTaken;
+    private final Counter emailFalsePositive;
+
+    public AvailabilityIndex(UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.auth.availability.min-capacity:100000}") long minCapacity,
+                             @Value("${app.auth.availability.false-positive-rate:0.01}") double falsePositiveRate,
+                             MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.minCapacity = minCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.usernameAbsent = lookupCounter(meterRegistry, "username", "absent");
+        this.usernameTaken = lookupCounter(meterRegistry, "username", "taken");
+        this.usernameFalsePositive = lookupCounter(meterRegistry, "username", "false_positive");
+        this.emailAbsent = lookupCounter(meterRegistry, "email", "absent");
+        this.emailTaken = lookupCounter(meterRegistry, "email", "taken");
+        this.emailFalsePositive = lookupCounter(meterRegistry, "email", "false_positive");
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String field, String result) {
+        return Counter.builder("bingo.auth.availability")
+                .description("Comprobaciones de disponibilidad: absent no toca la base de datos")
+                .tag("field", field)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // La primera ejecución es al arrancar; las siguientes recogen altas de otros nodos
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.auth.availability.rebuild-ms:3600000}")
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        long capacity = Math.max(minCapacity, userRepository.count() * 2);
+        Filters next = new Filters(new BloomFilter(capacity, falsePositiveRate), new BloomFilter(capacity, falsePositiveRate));
+        building = next;
+        try {
+            long loaded = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<UserRepository.UniqueKeys> keys = userRepository.streamUniqueKeys()) {
+                    for (UserRepository.UniqueKeys key : (Iterable<UserRepository.UniqueKeys>) keys::iterator) {
+                        put(next.usernames(), key.getUsername());
+                        put(next.emails(), key.getEmail());
+                        count++;
+                    }
+                }
+                return count;
+            });
+            filters = next;
+            log.info("Índice de disponibilidad cargado: {} usuarios, capacidad {}, {} KB en {} ms", loaded, capacity,
+                    2 * next.usernames().sizeInBytes() / 1024, (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Error al cargar el índice de disponibilidad", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    // Se llama tras confirmar el alta
+    public void add(String username, String email) {
+        for (Filters target : new Filters[]{filters, building}) {
+            if (target != null) {
+                put(target.usernames(), username);
+                put(target.emails(), email);
+            }
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return isAvailable(username, Filters::usernames, userRepository::existsByUsername,
+                usernameAbsent, usernameTaken, usernameFalsePositive);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return isAvailable(email, Filters::emails, userRepository::existsByEmail,
+                emailAbsent, emailTaken, emailFalsePositive);
+    }
+
+    private boolean isAvailable(String value, Function<Filters, BloomFilter> filter,
+                                Predicate<String> existsInDatabase, Counter absent, Counter taken, Counter falsePositive) {
+        Filters current = filters;
+        if (current != null && value != null && !filter.apply(current).mightContain(normalize(value))) {
+            absent.increment();
+            return true;
+        }
+        if (existsInDatabase.test(value)) {
+            taken.increment();
+            return false;
+        }
+        if (current != null) {
+            falsePositive.increment();
+        }
+        return true;
+    }
+
+    private static void put(BloomFilter filter, String value) {
+        if (value != null) {
+            filter.put(normalize(value));
+        }
+    }
+
+    // La misma forma al insertar (alta y reconstrucción) y al buscar
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,72 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Límite por cliente de /auth/available, que no pide sesión y serviría para
+ * enumerar emails registrados. Es un GCRA como el de los sockets: un
+ * AtomicLong por cliente en una caché acotada, y una entrada que lleva una
+ * ráfaga entera sin usarse se puede descartar porque ya estaría llena.
+ */
+@Component
+public class AvailabilityRateLimiter {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    // Los tiempos son relativos a origin para que un cubo nuevo (0) esté lleno
+    private final long origin;
+    private final Cache<String, AtomicLong> clients;
+    private final Counter throttled;
+
+    @Autowired
+    public AvailabilityRateLimiter(@Value("${app.auth.availability.rate-limit.per-second:2}") double perSecond,
+                                   @Value("${app.auth.availability.rate-limit.burst:20}") int burst,
+                                   @Value("${app.auth.availability.rate-limit.max-clients:100000}") long maxClients,
+                                   MeterRegistry meterRegistry) {
+        this(perSecond, burst, maxClients, meterRegistry, System::nanoTime);
+    }
+
+    AvailabilityRateLimiter(double perSecond, int burst, long maxClients, MeterRegistry meterRegistry,
+                            LongSupplier nanoClock) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalStateException("Límite de /auth/available no válido: " + perSecond + "/" + burst);
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        this.burstNanos = intervalNanos * burst;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(burstNanos, TimeUnit.NANOSECONDS)
+                .build();
+        this.throttled = Counter.builder("bingo.auth.availability.throttled")
+                .description("Consultas de disponibilidad rechazadas por superar el límite del cliente")
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire(String client) {
+        AtomicLong tat = clients.get(client, key -> new AtomicLong());
+        long now = nanoClock.getAsLong() - origin;
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                throttled.increment();
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
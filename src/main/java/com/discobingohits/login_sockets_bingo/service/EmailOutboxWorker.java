@@ -0,0 +1,214 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.model.EmailOutbox;
+import com.discobingohits.login_sockets_bingo.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vacía la tabla email_outbox. Cada lote se envía con una sola llamada a
+ * JavaMailSender, que reutiliza la misma conexión SMTP para todos los
+ * mensajes. Los fallos se reintentan con backoff exponencial.
+ * Antes de enviar, el lote se reclama con un UPDATE condicional que aplaza
+ * nextAttemptAt hasta el fin de la reclamación, así que con varios nodos
+ * cada email lo envía uno solo. Si el nodo cae a mitad de envío, las filas
+ * vuelven a estar disponibles al vencer la reclamación.
+ */
+@Component
+public class EmailOutboxWorker {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String fromEmail;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final long leaseMs;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final Timer deliveryLatency;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public EmailOutboxWorker(EmailOutboxRepository outboxRepository,
+                             JavaMailSender mailSender,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${spring.mail.username}") String fromEmail,
+                             @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                             @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${app.mail.outbox.backoff-initial-ms:5000}") long backoffInitialMs,
+                             @Value("${app.mail.outbox.backoff-max-ms:600000}") long backoffMaxMs,
+                             @Value("${app.mail.outbox.lease-ms:300000}") long leaseMs,
+                             MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.leaseMs = leaseMs;
+        this.deliveryLatency = Timer.builder("bingo.mail.outbox.delivery")
+                .description("Tiempo desde que se encola un email hasta que se entrega")
+                .register(meterRegistry);
+        this.sent = Counter.builder("bingo.mail.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("bingo.mail.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("bingo.mail.outbox.failed")
+                .description("Emails descartados tras agotar los reintentos")
+                .register(meterRegistry);
+        Gauge.builder("bingo.mail.outbox.pending", pending, AtomicLong::get)
+                .description("Emails pendientes de enviar")
+                .register(meterRegistry);
+        Gauge.builder("bingo.mail.outbox.lag.seconds", oldestPendingAt, this::lagSeconds)
+                .description("Antigüedad del email pendiente más antiguo")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:1000}")
+    public void drain() {
+        try {
+            List<Long> due;
+            do {
+                due = outboxRepository.findDueIds(EmailOutbox.Status.PENDING, new Date(), PageRequest.of(0, batchSize));
+                if (!due.isEmpty()) {
+                    List<EmailOutbox> batch = claim(due);
+                    if (!batch.isEmpty()) {
+                        send(batch);
+                    }
+                }
+            } while (due.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Error al procesar la cola de emails", e);
+        } finally {
+            refreshLag();
+        }
+    }
+
+    private List<EmailOutbox> claim(List<Long> ids) {
+        String claim = UUID.randomUUID().toString();
+        Date now = new Date();
+        int claimed = transactionTemplate.execute(status -> outboxRepository.claim(
+                ids, EmailOutbox.Status.PENDING, now, claim, new Date(now.getTime() + leaseMs)));
+        return claimed == 0 ? List.of() : outboxRepository.findByClaimedByOrderByIdAsc(claim);
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            messages[i] = toMessage(batch.get(i));
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Algunos mensajes del lote pueden haber salido; solo se reintentan los fallidos
+            failures = e.getFailedMessages().isEmpty() ? allFailed(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        List<EmailOutbox> delivered = new ArrayList<>();
+        List<EmailOutbox> toRetry = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                delivered.add(email);
+                deliveryLatency.record(now - email.getCreatedAt().getTime(), TimeUnit.MILLISECONDS);
+            } else {
+                scheduleRetry(email, failure, now);
+                toRetry.add(email);
+            }
+        }
+
+        outboxRepository.deleteAllInBatch(delivered);
+        outboxRepository.saveAll(toRetry);
+        sent.increment(delivered.size());
+    }
+
+    private void scheduleRetry(EmailOutbox email, Exception failure, long now) {
+        email.setClaimedBy(null);
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(failure.getMessage()));
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            failed.increment();
+            log.error("Email {} a {} descartado tras {} intentos: {}", email.getId(), email.getRecipient(), attempts, failure.getMessage());
+            return;
+        }
+        long backoff = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempts - 1, 20));
+        email.setNextAttemptAt(new Date(now + backoff));
+        retried.increment();
+        log.warn("Error al enviar el email {} (intento {}), reintento en {} ms: {}", email.getId(), attempts, backoff, failure.getMessage());
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+
+    private Map<Object, Exception> allFailed(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, e);
+        }
+        return failures;
+    }
+
+    private void refreshLag() {
+        try {
+            pending.set(outboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+            oldestPendingAt.set(outboxRepository.findFirstByStatusOrderByIdAsc(EmailOutbox.Status.PENDING)
+                    .map(email -> email.getCreatedAt().getTime())
+                    .orElse(0L));
+        } catch (Exception e) {
+            log.debug("No se pudo calcular el retraso de la cola de emails: {}", e.getMessage());
+        }
+    }
+
+    private double lagSeconds(AtomicLong oldestPendingAt) {
+        long oldest = oldestPendingAt.get();
+        return oldest == 0 ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
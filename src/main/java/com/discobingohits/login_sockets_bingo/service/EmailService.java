@@ -1,25 +1,27 @@
 package com.discobingohits.login_sockets_bingo.service;
 
+import com.discobingohits.login_sockets_bingo.model.EmailOutbox;
+import com.discobingohits.login_sockets_bingo.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Los emails no se envían aquí: se guardan en la tabla email_outbox dentro de
+ * la transacción del llamante y EmailOutboxWorker los entrega en segundo plano.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-
-    public void sendVerificationEmail(String to, String subject, String text) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromEmail);
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        mailSender.send(message);
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void queueVerificationEmail(String to, String subject, String text) {
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setBody(text);
+        outboxRepository.save(email);
     }
 }
@@ -0,0 +1,74 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.model.UserAuth;
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché acotada de UserAuth por username para que los logins repetidos no
+ * vayan a la base de datos. Solo se guardan usuarios verificados: así un
+ * usuario que verifica su email en otro nodo no se queda bloqueado aquí
+ * hasta que caduque la entrada. Un hash antiguo tras un rehash sigue
+ * validando la misma contraseña, así que una entrada desfasada no rompe nada.
+ */
+@Component
+public class UserAuthCache {
+    private final UserRepository userRepository;
+    private final Cache<String, UserAuth> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserAuthCache(UserRepository userRepository,
+                         @Value("${app.auth.user-cache.max-size:10000}") long maxSize,
+                         @Value("${app.auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+                         MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.hits = lookupCounter("hit", meterRegistry);
+        this.misses = lookupCounter("miss", meterRegistry);
+        Gauge.builder("bingo.auth.user.cache.size", cache, Cache::estimatedSize)
+                .description("Usuarios en la caché de login")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("bingo.auth.user.cache")
+                .description("Búsquedas de usuario en el login")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // La clave es el username normalizado igual que en AvailabilityIndex, tanto al
+    // buscar como al invalidar: el login puede llegar con otro formato que el guardado
+    public Optional<UserAuth> find(String username) {
+        UserAuth cached = username != null ? cache.getIfPresent(AvailabilityIndex.normalize(username)) : null;
+        // Solo vale si coincide exactamente: la base de datos decide si "Ana" es "ana"
+        if (cached != null && cached.username().equals(username)) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        Optional<UserAuth> loaded = userRepository.findAuthByUsername(username);
+        loaded.filter(UserAuth::enabled)
+                .ifPresent(user -> cache.put(AvailabilityIndex.normalize(user.username()), user));
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(AvailabilityIndex.normalize(username));
+        }
+    }
+}
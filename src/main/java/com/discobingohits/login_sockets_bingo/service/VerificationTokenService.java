@@ -0,0 +1,167 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.model.VerificationToken;
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import com.discobingohits.login_sockets_bingo.repository.VerificationTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens de verificación de email en su propia tabla, buscados por el
+ * SHA-256 del token (índice único) y con caducidad. Un proceso periódico
+ * borra por lotes los tokens caducados y las cuentas que se quedaron sin
+ * verificar. Los usuarios antiguos con el token en users.verificationToken
+ * se pasan una vez a la tabla al arrancar, con el plazo contado desde ese
+ * momento, y a partir de ahí caducan y se purgan como los demás.
+ */
+@Service
+public class VerificationTokenService {
+    private static final Logger log = LoggerFactory.getLogger(VerificationTokenService.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final VerificationTokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMs;
+    private final int purgeBatchSize;
+    private final Counter purgedTokens;
+    private final Counter purgedUsers;
+
+    public VerificationTokenService(VerificationTokenRepository tokenRepository,
+                                    UserRepository userRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${app.auth.verification.ttl-hours:48}") long ttlHours,
+                                    @Value("${app.auth.verification.purge-batch-size:500}") int purgeBatchSize,
+                                    MeterRegistry meterRegistry) {
+        this.tokenRepository = tokenRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlMs = TimeUnit.HOURS.toMillis(ttlHours);
+        this.purgeBatchSize = purgeBatchSize;
+        this.purgedTokens = Counter.builder("bingo.auth.verification.purged")
+                .description("Tokens caducados y cuentas sin verificar borrados")
+                .tag("kind", "token")
+                .register(meterRegistry);
+        this.purgedUsers = Counter.builder("bingo.auth.verification.purged")
+                .description("Tokens caducados y cuentas sin verificar borrados")
+                .tag("kind", "user")
+                .register(meterRegistry);
+    }
+
+    // Debe llamarse dentro de la transacción que guarda al usuario; devuelve el token en claro
+    public String issue(User user) {
+        byte[] random = new byte[32];
+        RANDOM.nextBytes(random);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        store(user, token);
+        return token;
+    }
+
+    private void store(User user, String token) {
+        VerificationToken verificationToken = new VerificationToken();
+        verificationToken.setTokenHash(hash(token));
+        verificationToken.setUser(user);
+        verificationToken.setExpiresAt(new Date(System.currentTimeMillis() + ttlMs));
+        tokenRepository.save(verificationToken);
+    }
+
+    // Vaciar la columna en la misma transacción hace que un segundo arranque ya no encuentre nada
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyTokens() {
+        try {
+            long migrated = 0;
+            List<User> batch;
+            do {
+                batch = transactionTemplate.execute(status -> {
+                    List<User> users = userRepository.findLegacyVerificationTokens(PageRequest.of(0, purgeBatchSize));
+                    for (User user : users) {
+                        if (!user.isEnabled()) {
+                            store(user, user.getVerificationToken());
+                        }
+                        user.setVerificationToken(null);
+                    }
+                    return users;
+                });
+                migrated += batch.size();
+            } while (batch.size() == purgeBatchSize);
+            if (migrated > 0) {
+                log.info("Pasados {} tokens de verificación antiguos a verification_tokens", migrated);
+            }
+        } catch (Exception e) {
+            log.error("Error al pasar los tokens de verificación antiguos", e);
+        }
+    }
+
+    // Marca al usuario como verificado y devuelve su username
+    public String verify(String token) {
+        return transactionTemplate.execute(status -> {
+            VerificationToken verificationToken = tokenRepository.findByTokenHash(hash(token))
+                    .orElseThrow(() -> new RuntimeException("Token inválido"));
+            if (verificationToken.getExpiresAt().before(new Date())) {
+                throw new RuntimeException("Token caducado");
+            }
+            User user = verificationToken.getUser();
+            user.setEnabled(true);
+            tokenRepository.delete(verificationToken);
+            return user.getUsername();
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.verification.purge-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            long tokens = 0;
+            long users = 0;
+            List<Long> batch;
+            do {
+                batch = tokenRepository.findExpiredIds(new Date(), PageRequest.of(0, purgeBatchSize));
+                if (!batch.isEmpty()) {
+                    List<Long> expired = batch;
+                    int deletedUsers = transactionTemplate.execute(status -> {
+                        List<Long> userIds = tokenRepository.findUserIds(expired);
+                        tokenRepository.deleteAllByIdInBatch(expired);
+                        return userRepository.deleteUnverified(userIds);
+                    });
+                    tokens += batch.size();
+                    users += deletedUsers;
+                }
+            } while (batch.size() == purgeBatchSize);
+            purgedTokens.increment(tokens);
+            purgedUsers.increment(users);
+            if (tokens > 0) {
+                log.info("Purgados {} tokens de verificación caducados y {} cuentas sin verificar", tokens, users);
+            }
+        } catch (Exception e) {
+            log.error("Error al purgar los tokens de verificación", e);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.discobingohits.login_sockets_bingo;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Sesión sin red para los tests: guarda los mensajes de texto que recibe
+public class StubSession implements WebSocketSession {
+	private final String id;
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+	private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+	private volatile CloseStatus closeStatus;
+
+	public StubSession(String id) {
+		this.id = id;
+	}
+
+	public StubSession(String id, String username) {
+		this(id);
+		attributes.put("username", username);
+	}
+
+	// Siguiente mensaje recibido, o null si no llega en el tiempo dado
+	public String poll(long timeoutMs) throws InterruptedException {
+		return received.poll(timeoutMs, TimeUnit.MILLISECONDS);
+	}
+
+	// Descarta mensajes hasta el primero que contiene el texto dado
+	public String await(String fragment, long timeoutMs) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		while (true) {
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			String message = remaining > 0 ? received.poll(remaining, TimeUnit.MILLISECONDS) : null;
+			if (message == null || message.contains(fragment)) {
+				return message;
+			}
+		}
+	}
+
+	public CloseStatus getCloseStatus() {
+		return closeStatus;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public URI getUri() {
+		return URI.create("ws://localhost/socket/ws");
+	}
+
+	@Override
+	public HttpHeaders getHandshakeHeaders() {
+		return HttpHeaders.EMPTY;
+	}
+
+	@Override
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public Principal getPrincipal() {
+		return null;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return null;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return null;
+	}
+
+	@Override
+	public String getAcceptedProtocol() {
+		return null;
+	}
+
+	@Override
+	public void setTextMessageSizeLimit(int messageSizeLimit) {
+	}
+
+	@Override
+	public int getTextMessageSizeLimit() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+	}
+
+	@Override
+	public int getBinaryMessageSizeLimit() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public List<WebSocketExtension> getExtensions() {
+		return List.of();
+	}
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) {
+		if (message instanceof TextMessage text) {
+			received.add(text.getPayload());
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return closeStatus == null;
+	}
+
+	@Override
+	public void close() {
+		close(CloseStatus.NORMAL);
+	}
+
+	@Override
+	public void close(CloseStatus status) {
+		closeStatus = status;
+	}
+}
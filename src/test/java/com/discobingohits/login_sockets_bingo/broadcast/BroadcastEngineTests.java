@@ -0,0 +1,234 @@
+package com.discobingohits.login_sockets_bingo.broadcast;
+
+import com.discobingohits.login_sockets_bingo.StubSession;
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundFrame;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import com.discobingohits.login_sockets_bingo.protocol.WireFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sesiones sin red; BlockingSession simula un cliente que deja de leer
+class BroadcastEngineTests {
+	private static final int NO_STALL_MS = 60_000;
+
+	private final SocketExecutors executors = new SocketExecutors(1, 2, new StandardEnvironment());
+	private final OutboundWriter writer = new OutboundWriter();
+	private final List<BlockingSession> blocked = new ArrayList<>();
+
+	// Se queda dentro de sendMessage hasta release()
+	private static final class BlockingSession extends StubSession {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch released = new CountDownLatch(1);
+
+		BlockingSession(String id) {
+			super(id);
+		}
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) {
+			entered.countDown();
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.sendMessage(message);
+		}
+
+		void release() {
+			released.countDown();
+		}
+	}
+
+	@AfterEach
+	void shutdown() {
+		blocked.forEach(BlockingSession::release);
+		executors.shutdown();
+	}
+
+	@Test
+	void broadcastReachesEveryOpenRecipient() throws Exception {
+		BroadcastEngine engine = engine(SlowConsumerPolicy.DISCONNECT, 1 << 20, NO_STALL_MS, NO_STALL_MS);
+		StubSession first = register(engine, new StubSession("s1"));
+		StubSession second = register(engine, new StubSession("s2"));
+		StubSession closed = register(engine, new StubSession("s3"));
+		closed.close();
+
+		engine.broadcast("ABCD", List.of(player("s1"), player("s2"), player("s3"), player("gone")), frame("markingEnabled"));
+
+		assertNotNull(first.await("markingEnabled", 2000));
+		assertNotNull(second.await("markingEnabled", 2000));
+		assertNull(closed.poll(100));
+	}
+
+	@Test
+	void dropNewestKeepsWhatWasAlreadyQueued() throws Exception {
+		BroadcastEngine engine = engine(SlowConsumerPolicy.DROP_NEWEST, twoMessages(), NO_STALL_MS, NO_STALL_MS);
+		BlockingSession session = fillWhileBlocked(engine);
+
+		session.release();
+		assertEquals(List.of("n1", "n2", "n3"), events(session, 3));
+		assertNull(session.poll(100));
+		assertNull(session.getCloseStatus());
+	}
+
+	@Test
+	void dropOldestMakesRoomForTheNewMessage() throws Exception {
+		BroadcastEngine engine = engine(SlowConsumerPolicy.DROP_OLDEST, twoMessages(), NO_STALL_MS, NO_STALL_MS);
+		BlockingSession session = fillWhileBlocked(engine);
+
+		session.release();
+		assertEquals(List.of("n1", "n3", "n4"), events(session, 3));
+		assertNull(session.poll(100));
+		assertNull(session.getCloseStatus());
+	}
+
+	@Test
+	void disconnectClosesTheSlowSession() throws Exception {
+		BroadcastEngine engine = engine(SlowConsumerPolicy.DISCONNECT, twoMessages(), NO_STALL_MS, NO_STALL_MS);
+		BlockingSession session = fillWhileBlocked(engine);
+
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE, awaitClose(session));
+		// Lo que quedaba en cola se descarta: solo llega el mensaje que ya estaba enviándose
+		session.release();
+		assertEquals(List.of("n1"), events(session, 1));
+		assertNull(session.poll(100));
+	}
+
+	@Test
+	void watchdogClosesAStalledSendWithoutNewTraffic() throws Exception {
+		BroadcastEngine engine = engine(SlowConsumerPolicy.DROP_NEWEST, 1 << 20, 50, 20);
+		BlockingSession session = block(register(engine, new BlockingSession("slow")));
+		StubSession healthy = register(engine, new StubSession("ok"));
+
+		engine.send("slow", frame("n1"));
+		assertTrue(session.entered.await(2, TimeUnit.SECONDS));
+
+		// Ni DROP_NEWEST ni un buffer holgado lo salvan: el envío lleva más de send-time-limit-ms
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE, awaitClose(session));
+		engine.send("ok", frame("n2"));
+		assertNotNull(healthy.await("n2", 2000));
+		assertNull(healthy.getCloseStatus());
+	}
+
+	@Test
+	void fanoutCompletesOnceWhenEveryRecipientIsDoneOrDropped() throws Exception {
+		AtomicInteger completions = new AtomicInteger();
+		AtomicInteger recipients = new AtomicInteger();
+		Fanout fanout = new Fanout("ABCD", (roomCode, count, latencyNanos) -> {
+			completions.incrementAndGet();
+			recipients.set(count);
+		});
+		StubSession fast = new StubSession("fast");
+		BlockingSession slow = block(new BlockingSession("slow"));
+		SessionOutbox fastOutbox = outbox(fast);
+		SessionOutbox slowOutbox = outbox(slow);
+		WebSocketMessage<?> message = new TextMessage("{\"event\":\"n1\"}");
+		WebSocketMessage<?> queued = new TextMessage("{\"event\":\"n2\"}");
+
+		fanout.addRecipient();
+		fastOutbox.add(new SessionOutbox.Pending(message, fanout));
+		fanout.addRecipient();
+		slowOutbox.add(new SessionOutbox.Pending(message, fanout));
+		assertTrue(slow.entered.await(2, TimeUnit.SECONDS));
+		fanout.addRecipient();
+		slowOutbox.add(new SessionOutbox.Pending(queued, fanout));
+		fanout.sealed();
+
+		assertNotNull(fast.await("n1", 2000));
+		// El segundo mensaje del lento se descarta: cuenta como entregado para la difusión
+		slowOutbox.discardAll();
+		assertEquals(0, completions.get());
+
+		slow.release();
+		assertNotNull(slow.await("n1", 2000));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (completions.get() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(1, completions.get());
+		assertEquals(3, recipients.get());
+	}
+
+	// n1 se queda enviándose; n2 y n3 llenan el buffer y n4 ya no cabe
+	private BlockingSession fillWhileBlocked(BroadcastEngine engine) throws Exception {
+		BlockingSession session = block(register(engine, new BlockingSession("slow")));
+		engine.send("slow", frame("n1"));
+		assertTrue(session.entered.await(2, TimeUnit.SECONDS));
+		for (String event : List.of("n2", "n3", "n4")) {
+			engine.send("slow", frame(event));
+		}
+		return session;
+	}
+
+	private BroadcastEngine engine(SlowConsumerPolicy policy, int bufferSizeLimit, int sendTimeLimitMs, long watchdogMs) {
+		return new BroadcastEngine(executors, sendTimeLimitMs, 1000, watchdogMs, bufferSizeLimit, policy, 250,
+				new SimpleMeterRegistry());
+	}
+
+	private SessionOutbox outbox(StubSession session) {
+		return new SessionOutbox(session, null, WireFormat.JSON, SocketTransport.WEBSOCKET,
+				executors.getOutboundExecutor(), (outbox, error) -> { }, false);
+	}
+
+	private <T extends StubSession> T register(BroadcastEngine engine, T session) {
+		engine.register(session);
+		return session;
+	}
+
+	private BlockingSession block(BlockingSession session) {
+		blocked.add(session);
+		return session;
+	}
+
+	private int twoMessages() throws Exception {
+		return 2 * frame("n1").encode(WireFormat.JSON).getPayloadLength();
+	}
+
+	private OutboundFrame frame(String event) {
+		return writer.frame(new OutboundEvents.Notice(event, null));
+	}
+
+	private static List<String> events(StubSession session, int count) throws InterruptedException {
+		List<String> events = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String message = session.poll(2000);
+			assertNotNull(message, "Faltan mensajes: " + events);
+			events.add(message.replaceAll(".*\"event\":\"([^\"]+)\".*", "$1"));
+		}
+		return events;
+	}
+
+	private static CloseStatus awaitClose(StubSession session) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (session.getCloseStatus() == null && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		return session.getCloseStatus();
+	}
+
+	private static Player player(String id) {
+		Player player = new Player();
+		player.setId(id);
+		return player;
+	}
+}
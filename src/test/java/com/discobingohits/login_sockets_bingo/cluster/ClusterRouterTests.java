@@ -0,0 +1,172 @@
+package com.discobingohits.login_sockets_bingo.cluster;
+
+import com.discobingohits.login_sockets_bingo.StubSession;
+import com.discobingohits.login_sockets_bingo.broadcast.BroadcastEngine;
+import com.discobingohits.login_sockets_bingo.broadcast.SlowConsumerPolicy;
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.discobingohits.login_sockets_bingo.model.RoomCodes;
+import com.discobingohits.login_sockets_bingo.protocol.InboundCommand;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.InboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dos nodos en la misma JVM unidos por LoopbackClusterBus, sin Spring
+class ClusterRouterTests {
+	private static final List<String> NODES = List.of("node-1", "node-2");
+
+	private final List<Node> nodes = new ArrayList<>();
+	private Node node1;
+	private Node node2;
+
+	private static final class Node implements ClusterRouter.Listener {
+		final SocketExecutors executors = new SocketExecutors(1, 2, new StandardEnvironment());
+		final BroadcastEngine broadcastEngine = new BroadcastEngine(executors, 5000, 1000, 1000, 1 << 20,
+				SlowConsumerPolicy.DISCONNECT, 250, new SimpleMeterRegistry());
+		final ClusterRouter router;
+		final BlockingQueue<String> forwarded = new LinkedBlockingQueue<>();
+		final BlockingQueue<String> closed = new LinkedBlockingQueue<>();
+
+		Node(String nodeId, List<String> members) {
+			router = new ClusterRouter(true, nodeId, members, 128, new LoopbackClusterBus(), broadcastEngine,
+					new InboundDecoder(), new OutboundWriter(), new SimpleMeterRegistry());
+			router.setListener(this);
+			router.start();
+		}
+
+		// El comando se reutiliza por hilo: se copia lo que se comprueba
+		@Override
+		public void onForwardedCommand(String sessionId, String username, InboundCommand command) {
+			forwarded.add(sessionId + " " + username + " " + command.getEvent() + " " + command.getRoomCode());
+		}
+
+		@Override
+		public void onRemoteSessionClosed(String sessionId) {
+			closed.add(sessionId);
+		}
+
+		void stop() {
+			router.stop();
+			executors.shutdown();
+		}
+	}
+
+	@BeforeEach
+	void startNodes() {
+		node1 = start("node-1", NODES);
+		node2 = start("node-2", NODES);
+	}
+
+	@AfterEach
+	void stopNodes() {
+		nodes.forEach(Node::stop);
+	}
+
+	private Node start(String nodeId, List<String> members) {
+		Node node = new Node(nodeId, members);
+		nodes.add(node);
+		return node;
+	}
+
+	@Test
+	void commandForRemoteRoomIsForwardedToOwner() throws Exception {
+		String code = codeOwnedBy(node1.router, false);
+		assertTrue(node2.router.isLocal(code));
+
+		node1.router.forward(code, "s1", "ana",
+				new TextMessage("{\"event\":\"checkRoom\",\"data\":{\"roomCode\":\"" + code + "\"}}"));
+
+		assertEquals("node-1/s1 ana " + InboundEvent.CHECK_ROOM + " " + code, node2.forwarded.poll(2, TimeUnit.SECONDS));
+		assertEquals(0, node1.forwarded.size());
+
+		node1.router.sessionClosed("s1");
+		assertEquals("node-1/s1", node2.closed.poll(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void deliverReachesRemoteSession() throws Exception {
+		StubSession client = new StubSession("s1");
+		node1.broadcastEngine.register(client);
+
+		node2.router.sendTo("node-1/s1", new OutboundEvents.RoomStatus(true, "lobby", 3, 12, "m-1"));
+
+		String message = client.poll(2000);
+		assertNotNull(message, "El cliente de node-1 no recibió el DELIVER");
+		assertTrue(message.contains("\"event\":\"roomStatus\""));
+		assertTrue(message.contains("\"messageId\":\"m-1\""));
+	}
+
+	@Test
+	void broadcastGroupsRecipientsByNode() throws Exception {
+		StubSession first = new StubSession("s1");
+		StubSession second = new StubSession("s2");
+		node1.broadcastEngine.register(first);
+		node1.broadcastEngine.register(second);
+		List<Player> recipients = List.of(player("node-1/s1"), player("node-1/s2"), player("local"));
+
+		node2.router.broadcast(recipients, new OutboundEvents.Notice("markingEnabled", null));
+
+		assertNotNull(first.await("markingEnabled", 2000));
+		assertNotNull(second.await("markingEnabled", 2000));
+	}
+
+	@Test
+	void ownershipMovesWhenNodeLeavesTheRing() {
+		ConsistentHashRing full = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 128);
+		ConsistentHashRing withoutNode2 = new ConsistentHashRing(List.of("node-1", "node-3"), 128);
+		int moved = 0;
+		for (int i = 0; i < 5000; i++) {
+			long key = RoomCodes.key(RoomCodes.random());
+			String before = full.ownerOf(key);
+			String after = withoutNode2.ownerOf(key);
+			if (before.equals("node-2")) {
+				assertTrue(!after.equals("node-2"));
+				moved++;
+			} else {
+				// Solo cambian de dueño las salas del nodo que sale
+				assertEquals(before, after);
+			}
+		}
+		assertTrue(moved > 1000 && moved < 2300, "Reparto desigual: " + moved + " de 5000 en node-2");
+
+		// Un nodo que arranca con node-2 fuera de la lista se queda las salas que eran de node-2
+		String code = codeOwnedBy(node1.router, false);
+		node1.stop();
+		nodes.remove(node1);
+		Node alone = start("node-1", List.of("node-1"));
+		assertTrue(alone.router.isLocal(code));
+	}
+
+	private static String codeOwnedBy(ClusterRouter router, boolean local) {
+		for (int i = 0; i < 1000; i++) {
+			String code = RoomCodes.random();
+			if (router.isLocal(code) == local) {
+				return code;
+			}
+		}
+		throw new IllegalStateException("Ningún código de prueba cae en el nodo esperado");
+	}
+
+	private static Player player(String id) {
+		Player player = new Player();
+		player.setId(id);
+		return player;
+	}
+}
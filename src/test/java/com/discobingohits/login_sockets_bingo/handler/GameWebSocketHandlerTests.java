@@ -0,0 +1,214 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.StubSession;
+import com.discobingohits.login_sockets_bingo.broadcast.BroadcastEngine;
+import com.discobingohits.login_sockets_bingo.broadcast.SlowConsumerPolicy;
+import com.discobingohits.login_sockets_bingo.cluster.ClusterRouter;
+import com.discobingohits.login_sockets_bingo.cluster.LoopbackClusterBus;
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.journal.RoomJournal;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Handler completo sin Spring ni red; el journal en un directorio temporal simula el reinicio
+class GameWebSocketHandlerTests {
+	private static final String ROOM_CODE = "ABCD";
+	private static final Pattern ROSTER_VERSION = Pattern.compile("\"rosterVersion\":(\\d+)");
+
+	@TempDir
+	Path dir;
+
+	private final List<Node> nodes = new ArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		nodes.forEach(Node::close);
+	}
+
+	@Test
+	void restoredFullRoomReadmitsItsPlayers() throws Exception {
+		Node before = start(600);
+		before.createRoom(new StubSession("h1", "gm"), 2);
+		before.join(new StubSession("p1"), "Ana");
+		before.close();
+
+		Node after = start(600);
+		StubSession ana = after.connect(new StubSession("p2"));
+		after.send(ana, joinRoom("Ana"));
+		assertNotNull(ana.await("roomJoined", 2000));
+
+		// Para alguien nuevo la sala sigue llena
+		StubSession luis = after.connect(new StubSession("p3"));
+		after.send(luis, joinRoom("Luis"));
+		assertNotNull(luis.await("ROOM_FULL", 2000));
+	}
+
+	@Test
+	void unclaimedRestoredPlayersAreDroppedAfterTheGrace() throws Exception {
+		Node before = start(600);
+		before.createRoom(new StubSession("h1", "gm"), 3);
+		before.join(new StubSession("p1"), "Ana");
+		before.join(new StubSession("p2"), "Luis");
+		before.close();
+
+		Node after = start(1);
+		StubSession host = after.connect(new StubSession("h2", "gm"));
+		after.send(host, createRoom(3));
+		assertNotNull(host.await("roomCreated", 2000));
+		StubSession ana = after.connect(new StubSession("p3"));
+		after.send(ana, joinRoom("Ana"));
+		assertNotNull(ana.await("roomJoined", 2000));
+
+		String removed = ana.await("playerRemoved", 3000);
+		assertNotNull(removed);
+		assertTrue(removed.contains("\"p2\""), removed);
+		assertNull(ana.await("playerRemoved", 200));
+
+		// La plaza de Luis vuelve a estar libre
+		StubSession eva = after.connect(new StubSession("p4"));
+		after.send(eva, joinRoom("Eva"));
+		assertNotNull(eva.await("roomJoined", 2000));
+	}
+
+	@Test
+	void newRoomIsNotExpiredBeforeAnyoneLeaves() throws Exception {
+		Node node = start(1);
+		StubSession host = new StubSession("h1", "gm");
+		node.createRoom(host, 4);
+
+		// Más que el margen más un tick de la caducidad
+		assertNull(host.await("roomExpired", 2500));
+		node.join(new StubSession("p1"), "Ana");
+	}
+
+	@Test
+	void roomExpiresWithANoticeOnceTheLastPlayerLeaves() throws Exception {
+		Node node = start(1);
+		StubSession host = new StubSession("h1", "gm");
+		node.createRoom(host, 4);
+		StubSession ana = new StubSession("p1");
+		node.join(ana, "Ana");
+		node.handler.afterConnectionClosed(ana, CloseStatus.NORMAL);
+
+		assertNotNull(host.await("roomExpired", 4000));
+	}
+
+	@Test
+	void rosterDeltasFollowTheSnapshotVersionWithoutGaps() throws Exception {
+		Node node = start(600);
+		node.createRoom(new StubSession("h1", "gm"), 4);
+		StubSession ana = new StubSession("p1");
+		node.join(ana, "Ana");
+		// roomJoined ya se ha consumido: se vuelve a pedir la foto para conocer su versión
+		node.send(ana, event("syncRoster", "\"messageId\":\"s-1\""));
+		long snapshot = rosterVersion(ana.await("playersUpdate", 2000));
+
+		StubSession luis = new StubSession("p2");
+		node.join(luis, "Luis");
+		node.send(ana, event("playerReady", "\"messageId\":\"r-1\""));
+		node.handler.afterConnectionClosed(luis, CloseStatus.NORMAL);
+
+		assertEquals(snapshot + 1, rosterVersion(ana.await("playerAdded", 2000)));
+		assertEquals(snapshot + 2, rosterVersion(ana.await("playerChanged", 2000)));
+		assertEquals(snapshot + 3, rosterVersion(ana.await("playerRemoved", 2000)));
+		node.send(ana, event("syncRoster", "\"messageId\":\"s-2\""));
+		assertEquals(snapshot + 3, rosterVersion(ana.await("playersUpdate", 2000)));
+	}
+
+	private Node start(long emptyGraceSeconds) throws Exception {
+		Node node = new Node(dir, emptyGraceSeconds);
+		nodes.add(node);
+		return node;
+	}
+
+	private static String createRoom(int maxPlayers) {
+		return "{\"event\":\"createRoom\",\"data\":{\"messageId\":\"c-1\",\"config\":{\"roomCode\":\""
+				+ ROOM_CODE + "\",\"difficulty\":\"normal\",\"maxPlayers\":" + maxPlayers + "}}}";
+	}
+
+	private static String event(String name, String fields) {
+		return "{\"event\":\"" + name + "\",\"data\":{\"roomCode\":\"" + ROOM_CODE + "\"," + fields + "}}";
+	}
+
+	private static long rosterVersion(String message) {
+		assertNotNull(message);
+		Matcher matcher = ROSTER_VERSION.matcher(message);
+		assertTrue(matcher.find(), message);
+		return Long.parseLong(matcher.group(1));
+	}
+
+	private static String joinRoom(String name) {
+		return "{\"event\":\"joinRoom\",\"data\":{\"roomCode\":\"" + ROOM_CODE + "\",\"name\":\"" + name + "\"}}";
+	}
+
+	// Un proceso del servidor: mismas piezas que en producción, con journal y admisión inmediata
+	private static final class Node implements AutoCloseable {
+		final SocketExecutors executors = new SocketExecutors(1, 2, new StandardEnvironment());
+		final RoomJournal journal;
+		final GameWebSocketHandler handler;
+		private boolean closed;
+
+		Node(Path dir, long emptyGraceSeconds) throws Exception {
+			MeterRegistry registry = new SimpleMeterRegistry();
+			OutboundWriter writer = new OutboundWriter();
+			InboundDecoder decoder = new InboundDecoder();
+			BroadcastEngine engine = new BroadcastEngine(executors, 5000, 1000, 1000, 1 << 20,
+					SlowConsumerPolicy.DISCONNECT, 250, registry);
+			ClusterRouter router = new ClusterRouter(false, "test", List.of("test"), 1,
+					new LoopbackClusterBus(), engine, decoder, writer, registry);
+			this.journal = new RoomJournal(true, dir.toString(), 1 << 16, 10, 3_600_000, registry);
+			this.handler = new GameWebSocketHandler(engine, decoder, writer, router, journal, executors,
+					0, 1800, 21600, emptyGraceSeconds, false, "", "", RateLimitPolicy.DROP, false, 50, Set.of(),
+					registry);
+		}
+
+		StubSession connect(StubSession session) {
+			handler.afterConnectionEstablished(session);
+			return session;
+		}
+
+		void send(StubSession session, String json) throws Exception {
+			handler.handleMessage(session, new TextMessage(json));
+		}
+
+		void createRoom(StubSession host, int maxPlayers) throws Exception {
+			send(connect(host), GameWebSocketHandlerTests.createRoom(maxPlayers));
+			assertNotNull(host.await("roomCreated", 2000));
+		}
+
+		void join(StubSession player, String name) throws Exception {
+			send(connect(player), joinRoom(name));
+			assertNotNull(player.await("roomJoined", 2000));
+		}
+
+		// Sin afterConnectionClosed: las sesiones mueren con el proceso
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				journal.shutdown();
+				executors.shutdown();
+			}
+		}
+	}
+}
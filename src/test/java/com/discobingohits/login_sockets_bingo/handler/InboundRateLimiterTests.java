@@ -0,0 +1,173 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.protocol.InboundEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GCRA con reloj manual: "1/3" es un evento por segundo con ráfaga de 3
+class InboundRateLimiterTests {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong now = new AtomicLong(5 * SECOND);
+
+	@Test
+	void burstIsAllowedThenRefillsAtTheConfiguredRate() {
+		InboundRateLimiter limiter = limiter("joinRoom:1/3", "*:1000/1000");
+		limiter.sessionOpened("s1");
+
+		assertEquals(3, takeAll(limiter, "s1", InboundEvent.JOIN_ROOM));
+
+		now.addAndGet(SECOND / 2);
+		assertFalse(limiter.allowSession("s1", InboundEvent.JOIN_ROOM));
+		now.addAndGet(SECOND / 2);
+		assertTrue(limiter.allowSession("s1", InboundEvent.JOIN_ROOM));
+		assertFalse(limiter.allowSession("s1", InboundEvent.JOIN_ROOM));
+
+		// Un rato largo sin eventos no acumula más que la ráfaga
+		now.addAndGet(60 * SECOND);
+		assertEquals(3, takeAll(limiter, "s1", InboundEvent.JOIN_ROOM));
+	}
+
+	@Test
+	void eventsHaveIndependentBucketsAndDefault() {
+		InboundRateLimiter limiter = limiter("winner:0.5/2,*:1/1", "*:1000/1000");
+		limiter.sessionOpened("s1");
+
+		assertEquals(2, takeAll(limiter, "s1", InboundEvent.WINNER));
+		assertEquals(1, takeAll(limiter, "s1", InboundEvent.CHECK_ROOM));
+		assertEquals(1, takeAll(limiter, "s1", InboundEvent.PLAYER_READY));
+
+		// A 0,5 por segundo hace falta esperar dos segundos
+		now.addAndGet(SECOND);
+		assertFalse(limiter.allowSession("s1", InboundEvent.WINNER));
+		now.addAndGet(SECOND);
+		assertTrue(limiter.allowSession("s1", InboundEvent.WINNER));
+	}
+
+	@Test
+	void eventsWithoutLimitAreAlwaysAllowed() {
+		InboundRateLimiter limiter = limiter("joinRoom:1/1", "joinRoom:1/1");
+		limiter.sessionOpened("s1");
+		GameRoom room = room("ABC123");
+
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(limiter.allowSession("s1", InboundEvent.CHECK_ROOM));
+			assertTrue(limiter.allowRoom(room, InboundEvent.WINNER));
+		}
+	}
+
+	@Test
+	void sessionsAreLimitedSeparately() {
+		InboundRateLimiter limiter = limiter("joinRoom:1/2", "*:1000/1000");
+		limiter.sessionOpened("s1");
+		limiter.sessionOpened("s2");
+
+		assertEquals(2, takeAll(limiter, "s1", InboundEvent.JOIN_ROOM));
+		assertEquals(2, takeAll(limiter, "s2", InboundEvent.JOIN_ROOM));
+
+		// Al cerrar la sesión se olvida su cubo; una sesión desconocida no se limita
+		limiter.sessionClosed("s1");
+		assertTrue(limiter.allowSession("s1", InboundEvent.JOIN_ROOM));
+	}
+
+	@Test
+	void roomBucketIsSharedAndResetWhenTheRoomGoes() {
+		InboundRateLimiter limiter = limiter("*:1000/1000", "playerReady:1/4");
+		GameRoom room = room("ABC123");
+		GameRoom sameCode = room("abc123");
+		GameRoom other = room("XYZ789");
+
+		assertTrue(limiter.allowRoom(room, InboundEvent.PLAYER_READY));
+		assertTrue(limiter.allowRoom(room, InboundEvent.PLAYER_READY));
+		assertTrue(limiter.allowRoom(sameCode, InboundEvent.PLAYER_READY));
+		assertTrue(limiter.allowRoom(sameCode, InboundEvent.PLAYER_READY));
+		assertFalse(limiter.allowRoom(room, InboundEvent.PLAYER_READY));
+		assertTrue(limiter.allowRoom(other, InboundEvent.PLAYER_READY));
+
+		limiter.roomRemoved("ABC123");
+		assertTrue(limiter.allowRoom(room, InboundEvent.PLAYER_READY));
+	}
+
+	@Test
+	void disabledLimiterAllowsEverything() {
+		InboundRateLimiter limiter = new InboundRateLimiter(false, "joinRoom:1/1", "*:1/1",
+				new SimpleMeterRegistry(), now::get);
+		limiter.sessionOpened("s1");
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.allowSession("s1", InboundEvent.JOIN_ROOM));
+			assertTrue(limiter.allowRoom(room("ABC123"), InboundEvent.WINNER));
+		}
+	}
+
+	@Test
+	void invalidSpecsAreRejected() {
+		assertThrows(IllegalStateException.class, () -> limiter("joinRoom:1", "*:1/1"));
+		assertThrows(IllegalStateException.class, () -> limiter("joinRoom:0/1", "*:1/1"));
+		assertThrows(IllegalStateException.class, () -> limiter("joinRoom:1/0", "*:1/1"));
+		assertThrows(IllegalStateException.class, () -> limiter("dance:1/1", "*:1/1"));
+	}
+
+	@Test
+	void concurrentTakesNeverExceedTheBurst() throws Exception {
+		InboundRateLimiter limiter = limiter("*:1000/1000", "playerReady:1/50");
+		GameRoom room = room("ABC123");
+		AtomicInteger allowed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 100; i++) {
+					if (limiter.allowRoom(room, InboundEvent.PLAYER_READY)) {
+						allowed.incrementAndGet();
+					}
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+		assertEquals(50, allowed.get());
+	}
+
+	private InboundRateLimiter limiter(String sessionSpec, String roomSpec) {
+		return new InboundRateLimiter(true, sessionSpec, roomSpec, new SimpleMeterRegistry(), now::get);
+	}
+
+	private static int takeAll(InboundRateLimiter limiter, String sessionId, InboundEvent event) {
+		int allowed = 0;
+		while (limiter.allowSession(sessionId, event)) {
+			allowed++;
+			if (allowed > 10_000) {
+				throw new IllegalStateException("El límite no se aplica");
+			}
+		}
+		return allowed;
+	}
+
+	private static GameRoom room(String code) {
+		GameRoom room = new GameRoom("host", new GameConfig());
+		room.setCode(code);
+		return room;
+	}
+}
@@ -0,0 +1,135 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Varios hilos en el scheduler para que un fallo de serialización por sala se note
+class JoinQueueTests {
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+	private final BlockingQueue<String> admitted = new LinkedBlockingQueue<>();
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void entriesOfOneRoomAreAdmittedInOrderOneAtATime() throws Exception {
+		Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+		AtomicInteger overlaps = new AtomicInteger();
+		JoinQueue queue = new JoinQueue(scheduler, 0, (roomCode, entry) -> {
+			AtomicInteger inRoom = active.computeIfAbsent(roomCode, code -> new AtomicInteger());
+			if (inRoom.incrementAndGet() > 1) {
+				overlaps.incrementAndGet();
+			}
+			Thread.sleep(1);
+			inRoom.decrementAndGet();
+			admitted.add(roomCode + ":" + entry.playerName);
+		}, new SimpleMeterRegistry());
+
+		for (int i = 0; i < 20; i++) {
+			queue.enqueue("AAAA", entry("a" + i));
+			queue.enqueue("BBBB", entry("b" + i));
+		}
+
+		List<String> all = new ArrayList<>();
+		List<String> first = new ArrayList<>();
+		List<String> second = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			String next = admitted.poll(5, TimeUnit.SECONDS);
+			assertNotNull(next, "Faltan admisiones: " + all);
+			all.add(next);
+			(next.startsWith("AAAA") ? first : second).add(next.substring(5));
+		}
+		assertEquals(0, overlaps.get());
+		assertEquals(names("a"), first);
+		assertEquals(names("b"), second);
+		assertEquals(0, queue.getTotalDepth());
+	}
+
+	@Test
+	void admissionsOfOneRoomAreSpacedByTheDelay() throws Exception {
+		List<Long> times = new ArrayList<>();
+		JoinQueue queue = new JoinQueue(scheduler, 50, (roomCode, entry) -> {
+			synchronized (times) {
+				times.add(System.nanoTime());
+			}
+			admitted.add(entry.playerName);
+		}, new SimpleMeterRegistry());
+
+		for (int i = 0; i < 3; i++) {
+			queue.enqueue("AAAA", entry("p" + i));
+		}
+		assertEquals(3, queue.getDepth("AAAA"));
+		for (int i = 0; i < 3; i++) {
+			assertEquals("p" + i, admitted.poll(2, TimeUnit.SECONDS));
+		}
+		synchronized (times) {
+			for (int i = 1; i < times.size(); i++) {
+				long gap = times.get(i) - times.get(i - 1);
+				assertTrue(gap >= TimeUnit.MILLISECONDS.toNanos(50), "Separación: " + gap);
+			}
+		}
+	}
+
+	@Test
+	void removedRoomStillHandsQueuedEntriesToTheAdmission() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		JoinQueue queue = new JoinQueue(scheduler, 0, (roomCode, entry) -> {
+			entered.countDown();
+			release.await();
+			admitted.add(entry.playerName);
+		}, new SimpleMeterRegistry());
+
+		queue.enqueue("AAAA", entry("p0"));
+		queue.enqueue("AAAA", entry("p1"));
+		queue.enqueue("AAAA", entry("p2"));
+		assertTrue(entered.await(2, TimeUnit.SECONDS));
+
+		// La sala deja de tener buzón, pero lo ya encolado se sigue contando hasta que se procesa
+		queue.removeRoom("AAAA");
+		assertEquals(0, queue.getDepth("AAAA"));
+		assertEquals(2, queue.getTotalDepth());
+
+		release.countDown();
+		for (int i = 0; i < 3; i++) {
+			assertEquals("p" + i, admitted.poll(2, TimeUnit.SECONDS));
+		}
+		assertEquals(0, queue.getTotalDepth());
+
+		// Una sala nueva con el mismo código empieza con un buzón vacío
+		queue.enqueue("AAAA", entry("p3"));
+		assertEquals("p3", admitted.poll(2, TimeUnit.SECONDS));
+		assertEquals(0, queue.getDepth("AAAA"));
+	}
+
+	private static JoinQueue.Entry entry(String name) {
+		return new JoinQueue.Entry("s-" + name, name, null);
+	}
+
+	private static List<String> names(String prefix) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			names.add(prefix + i);
+		}
+		return names;
+	}
+}
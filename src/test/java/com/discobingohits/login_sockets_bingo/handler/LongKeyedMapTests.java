@@ -0,0 +1,193 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongKeyedMapTests {
+	private static final int CAPACITY = 16;
+
+	@Test
+	void deleteInsideClusterThatWrapsAround() {
+		// Cuatro claves con casilla 15 ocupan 15, 0, 1 y 2; la de casilla 0 acaba en la 3
+		List<Long> atEnd = keysWithHome(CAPACITY - 1, 4);
+		long atStart = keysWithHome(0, 1).get(0);
+		LongKeyedMap<String> map = new LongKeyedMap<>(CAPACITY);
+		Map<Long, String> expected = new HashMap<>();
+		for (long key : atEnd) {
+			put(map, expected, key);
+		}
+		put(map, expected, atStart);
+
+		// Borrar al principio del grupo obliga a desplazar hacia atrás cruzando el final de la tabla
+		for (long key : List.of(atEnd.get(0), atEnd.get(2), atStart)) {
+			assertEquals(expected.remove(key), map.remove(key));
+			assertMatches(expected, map);
+		}
+
+		put(map, expected, atStart);
+		put(map, expected, atEnd.get(0));
+		put(map, expected, atEnd.get(2));
+		assertMatches(expected, map);
+	}
+
+	@Test
+	void removeWithValueOnlyMatchesSameInstance() {
+		LongKeyedMap<String> map = new LongKeyedMap<>(CAPACITY);
+		String value = new String("sala");
+		map.put(7, value);
+
+		assertFalse(map.remove(7, new String("sala")));
+		assertTrue(map.remove(7, value));
+		assertNull(map.get(7));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	void putIfAbsentKeepsExistingValue() {
+		LongKeyedMap<String> map = new LongKeyedMap<>(CAPACITY);
+		assertNull(map.putIfAbsent(3, "a"));
+		assertEquals("a", map.putIfAbsent(3, "b"));
+		assertEquals("a", map.get(3));
+	}
+
+	@Test
+	void growsAndKeepsEveryEntry() {
+		LongKeyedMap<String> map = new LongKeyedMap<>(CAPACITY);
+		Map<Long, String> expected = new HashMap<>();
+		for (long key = 1; key <= 5000; key++) {
+			put(map, expected, key * 37);
+		}
+		assertMatches(expected, map);
+		for (long key = 1; key <= 5000; key += 2) {
+			assertEquals(expected.remove(key * 37), map.remove(key * 37));
+		}
+		assertMatches(expected, map);
+	}
+
+	@Test
+	void randomOperationsMatchHashMap() {
+		Random random = new Random(42);
+		LongKeyedMap<String> map = new LongKeyedMap<>(CAPACITY);
+		Map<Long, String> expected = new HashMap<>();
+		for (int i = 0; i < 200_000; i++) {
+			// Pocas claves distintas para que haya grupos largos y muchos borrados
+			long key = 1 + random.nextInt(300);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				String value = "v" + i;
+				assertEquals(expected.put(key, value), map.put(key, value));
+			}
+			if (i % 1000 == 0) {
+				assertMatches(expected, map);
+			}
+		}
+		assertMatches(expected, map);
+	}
+
+	@Test
+	void readersNeverMissStableKeysWhileOthersAreDeleted() throws Exception {
+		LongKeyedMap<String> map = new LongKeyedMap<>(64);
+		// Claves estables y de paso mezcladas en los mismos grupos
+		List<Long> stable = new ArrayList<>();
+		List<Long> churn = new ArrayList<>();
+		List<Long> clustered = keysWithHome(0, 40, 64);
+		for (int i = 0; i < clustered.size(); i++) {
+			(i % 2 == 0 ? stable : churn).add(clustered.get(i));
+		}
+		for (long key : stable) {
+			map.put(key, "s" + key);
+		}
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<String> failure = new AtomicReference<>();
+		CountDownLatch done = new CountDownLatch(4);
+		List<Thread> threads = new ArrayList<>();
+		for (int r = 0; r < 3; r++) {
+			threads.add(new Thread(() -> {
+				try {
+					while (running.get() && failure.get() == null) {
+						for (long key : stable) {
+							String value = map.get(key);
+							if (!("s" + key).equals(value)) {
+								failure.set("Clave " + key + " leída como " + value);
+							}
+						}
+						for (long key : churn) {
+							String value = map.get(key);
+							if (value != null && !("c" + key).equals(value)) {
+								failure.set("Clave " + key + " con valor ajeno " + value);
+							}
+						}
+					}
+				} finally {
+					done.countDown();
+				}
+			}));
+		}
+		threads.add(new Thread(() -> {
+			try {
+				Random random = new Random(7);
+				while (running.get() && failure.get() == null) {
+					long key = churn.get(random.nextInt(churn.size()));
+					if (map.remove(key) == null) {
+						map.put(key, "c" + key);
+					}
+				}
+			} finally {
+				done.countDown();
+			}
+		}));
+		threads.forEach(Thread::start);
+		Thread.sleep(500);
+		running.set(false);
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertNull(failure.get());
+		for (long key : stable) {
+			assertEquals("s" + key, map.get(key));
+		}
+	}
+
+	private static void put(LongKeyedMap<String> map, Map<Long, String> expected, long key) {
+		String value = "v" + key;
+		assertSame(expected.put(key, value), map.put(key, value));
+	}
+
+	private static void assertMatches(Map<Long, String> expected, LongKeyedMap<String> map) {
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.size(), map.values().size());
+		for (Map.Entry<Long, String> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()), "Clave " + entry.getKey());
+		}
+	}
+
+	private static List<Long> keysWithHome(int home, int count) {
+		return keysWithHome(home, count, CAPACITY);
+	}
+
+	// Claves cuya casilla inicial en una tabla de esa capacidad es home
+	private static List<Long> keysWithHome(int home, int count, int capacity) {
+		List<Long> keys = new ArrayList<>();
+		for (long key = 1; keys.size() < count; key++) {
+			if (((int) LongKeyedMap.mix(key) & (capacity - 1)) == home) {
+				keys.add(key);
+			}
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,123 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvent;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundEvents;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// El sink anota "código evento" o "código batch[a,b]" por cada frame enviado
+class RoomBroadcastCoalescerTests {
+	private static final long TICK_MS = 30;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+
+	@AfterEach
+	void stopScheduler() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void eventsOfOneTickGoOutAsOneBatchInOrder() throws Exception {
+		RoomBroadcastCoalescer coalescer = coalescer(Set.of());
+		coalescer.submit("ABC123", notice("playerAdded"));
+		coalescer.submit("ABC123", notice("playerChanged"));
+		coalescer.submit("ABC123", notice("playersUpdate"));
+
+		assertEquals("ABC123 batch[playerAdded,playerChanged,playersUpdate]", next());
+		assertNull(sent.poll(TICK_MS * 3, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void singleEventIsSentWithoutBatch() throws Exception {
+		RoomBroadcastCoalescer coalescer = coalescer(Set.of());
+		coalescer.submit("ABC123", notice("markingEnabled"));
+
+		assertEquals("ABC123 markingEnabled", next());
+	}
+
+	@Test
+	void codesThatDifferOnlyInCaseShareTheRoom() throws Exception {
+		RoomBroadcastCoalescer coalescer = coalescer(Set.of());
+		coalescer.submit("ABC123", notice("playerAdded"));
+		coalescer.submit("abc123", notice("playerChanged"));
+
+		assertEquals("ABC123 batch[playerAdded,playerChanged]", next());
+		assertNull(sent.poll(TICK_MS * 3, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void bypassEventFlushesPendingFirst() throws Exception {
+		RoomBroadcastCoalescer coalescer = coalescer(Set.of("songRevealed"));
+		coalescer.submit("ABC123", notice("playerAdded"));
+		coalescer.submit("ABC123", notice("songRevealed"));
+
+		// Sin esperar al tick: lo pendiente y después el evento urgente
+		assertEquals("ABC123 playerAdded", sent.poll());
+		assertEquals("ABC123 songRevealed", sent.poll());
+	}
+
+	@Test
+	void terminalEventsAreNeverHeldBack() throws Exception {
+		// Aunque la configuración no los incluya
+		RoomBroadcastCoalescer coalescer = coalescer(Set.of());
+		coalescer.submit("ABC123", notice("playerReady"));
+		coalescer.submit("ABC123", notice("hostDisconnected"));
+		coalescer.roomRemoved("ABC123");
+
+		assertEquals("ABC123 playerReady", sent.poll());
+		assertEquals("ABC123 hostDisconnected", sent.poll());
+
+		coalescer.submit("DEF456", notice("playerReady"));
+		coalescer.submit("DEF456", notice("roomExpired"));
+		coalescer.roomRemoved("DEF456");
+		assertEquals("DEF456 playerReady", sent.poll());
+		assertEquals("DEF456 roomExpired", sent.poll());
+
+		coalescer.submit("XYZ789", new OutboundEvents.ErrorMessage("Sala cerrada", "ROOM_CLOSED", null));
+		assertEquals("XYZ789 error", sent.poll());
+	}
+
+	@Test
+	void removedRoomDropsPendingEvents() throws Exception {
+		RoomBroadcastCoalescer coalescer = coalescer(Set.of());
+		coalescer.submit("ABC123", notice("playerAdded"));
+		coalescer.roomRemoved("abc123");
+
+		assertNull(sent.poll(TICK_MS * 3, TimeUnit.MILLISECONDS));
+	}
+
+	private RoomBroadcastCoalescer coalescer(Set<String> bypass) {
+		return new RoomBroadcastCoalescer(scheduler, TICK_MS, bypass,
+				(roomCode, event) -> sent.add(roomCode + " " + describe(event)), new SimpleMeterRegistry());
+	}
+
+	private String next() throws InterruptedException {
+		return sent.poll(2, TimeUnit.SECONDS);
+	}
+
+	private static String describe(OutboundEvent event) {
+		if (event instanceof OutboundEvents.Batch batch) {
+			List<OutboundEvent> events = batch.getEvents();
+			return "batch" + events.stream().map(OutboundEvent::getEvent).collect(Collectors.joining(",", "[", "]"));
+		}
+		return event.getEvent();
+	}
+
+	private static OutboundEvent notice(String name) {
+		return new OutboundEvents.Notice(name, null);
+	}
+}
@@ -0,0 +1,163 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// La rueda con un reloj manual: cada tick() procesa todo lo vencido hasta "ahora"
+class RoomExpiryTests {
+	private static final long IDLE_MS = TimeUnit.MINUTES.toMillis(30);
+	private static final long HARD_MS = TimeUnit.HOURS.toMillis(6);
+	private static final long EMPTY_MS = TimeUnit.MINUTES.toMillis(10);
+
+	private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+	private final Set<GameRoom> live = ConcurrentHashMap.newKeySet();
+	private final Map<GameRoom, RoomExpiry.Reason> expired = new ConcurrentHashMap<>();
+	private RoomExpiry expiry;
+
+	@BeforeEach
+	void createWheel() {
+		expiry = new RoomExpiry(null, IDLE_MS, HARD_MS, EMPTY_MS, live::contains,
+				(room, reason) -> {
+					live.remove(room);
+					expired.put(room, reason);
+				},
+				new SimpleMeterRegistry(), now::get);
+	}
+
+	@Test
+	void idleRoomExpiresAfterIdleTtl() {
+		GameRoom room = scheduledRoom();
+
+		advance(IDLE_MS - 1000);
+		assertNull(expired.get(room));
+
+		advance(2000);
+		assertEquals(RoomExpiry.Reason.IDLE, expired.get(room));
+	}
+
+	@Test
+	void activityPostponesIdleExpiry() {
+		GameRoom room = scheduledRoom();
+
+		advance(IDLE_MS - 5000);
+		expiry.touch(room);
+		advance(10_000);
+		assertNull(expired.get(room), "La actividad no movió el plazo");
+
+		advance(IDLE_MS);
+		assertEquals(RoomExpiry.Reason.IDLE, expired.get(room));
+	}
+
+	@Test
+	void hardTtlWinsOverActivity() {
+		GameRoom room = scheduledRoom();
+
+		long step = TimeUnit.MINUTES.toMillis(10);
+		for (long elapsed = step; elapsed < HARD_MS; elapsed += step) {
+			advance(step);
+			expiry.touch(room);
+			assertNull(expired.get(room));
+		}
+
+		advance(step + 1000);
+		assertEquals(RoomExpiry.Reason.HARD_TTL, expired.get(room));
+	}
+
+	@Test
+	void emptyRoomExpiresAfterGrace() {
+		GameRoom room = scheduledRoom();
+		advance(TimeUnit.MINUTES.toMillis(5));
+
+		// El plazo por vacía (10 min) llega antes que el de inactividad ya colocado (30 min)
+		room.setEmptySince(now.get());
+		expiry.deadlineChanged(room);
+		advance(EMPTY_MS - 1000);
+		expiry.touch(room);
+		assertNull(expired.get(room));
+
+		advance(2000);
+		assertEquals(RoomExpiry.Reason.EMPTY, expired.get(room));
+	}
+
+	@Test
+	void deadlineBeyondOneTurnOfTheWheel() {
+		// 2048 casillas de un segundo: con 30 minutos de inactividad cabe; con 1 hora da una vuelta
+		RoomExpiry longIdle = new RoomExpiry(null, TimeUnit.HOURS.toMillis(1), HARD_MS, EMPTY_MS, live::contains,
+				(room, reason) -> expired.put(room, reason), new SimpleMeterRegistry(), now::get);
+		GameRoom room = room();
+		longIdle.schedule(room);
+
+		advance(longIdle, 2100_000);
+		assertNull(expired.get(room), "Caducó en la primera vuelta de la rueda");
+
+		advance(longIdle, TimeUnit.HOURS.toMillis(1) - 2100_000 + 1000);
+		assertEquals(RoomExpiry.Reason.IDLE, expired.get(room));
+	}
+
+	@Test
+	void replacedEntryExpiresOnlyOnce() {
+		List<RoomExpiry.Reason> reasons = new ArrayList<>();
+		RoomExpiry counting = new RoomExpiry(null, IDLE_MS, HARD_MS, EMPTY_MS, live::contains,
+				(room, reason) -> reasons.add(reason), new SimpleMeterRegistry(), now::get);
+		GameRoom room = room();
+		counting.schedule(room);
+		room.setEmptySince(now.get());
+		counting.deadlineChanged(room);
+		counting.deadlineChanged(room);
+
+		// La sala sigue en live: una entrada vieja que no se descartara la volvería a caducar
+		advance(counting, IDLE_MS + 1000);
+		assertEquals(List.of(RoomExpiry.Reason.EMPTY), reasons);
+	}
+
+	@Test
+	void removedRoomIsDroppedSilently() {
+		GameRoom room = scheduledRoom();
+		live.remove(room);
+
+		advance(HARD_MS + 1000);
+		assertTrue(expired.isEmpty());
+	}
+
+	private GameRoom scheduledRoom() {
+		GameRoom room = room();
+		expiry.schedule(room);
+		return room;
+	}
+
+	private GameRoom room() {
+		GameRoom room = new GameRoom("host", new GameConfig());
+		room.setCreatedAt(new Date(now.get()));
+		live.add(room);
+		return room;
+	}
+
+	private void advance(long ms) {
+		advance(expiry, ms);
+	}
+
+	// El reloj avanza de segundo en segundo, como el scheduler real
+	private void advance(RoomExpiry wheel, long ms) {
+		long target = now.get() + ms;
+		while (now.get() < target) {
+			now.set(Math.min(target, now.get() + 1000));
+			wheel.tick();
+		}
+	}
+}
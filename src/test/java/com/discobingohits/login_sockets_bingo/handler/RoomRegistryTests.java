@@ -0,0 +1,110 @@
+package com.discobingohits.login_sockets_bingo.handler;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Los índices sesión → sala y host → sala tienen que seguir a la lista de jugadores
+class RoomRegistryTests {
+	private final RoomRegistry registry = new RoomRegistry();
+
+	@Test
+	void registerIndexesHostAndRestoredPlayers() {
+		GameRoom room = room("ABCD", "h1");
+		room.getPlayers().add(player("p1", "Ana"));
+
+		assertTrue(registry.registerIfAbsent(room));
+		assertSame(room, registry.get("abcd"));
+		assertEquals("ABCD", registry.roomHostedBy("h1"));
+		assertEquals("ABCD", registry.roomOfSession("h1"));
+		assertEquals("ABCD", registry.roomOfSession("p1"));
+
+		// El mismo código en otra forma no pisa la sala ni sus índices
+		GameRoom clash = room("abcd", "h2");
+		assertFalse(registry.registerIfAbsent(clash));
+		assertSame(room, registry.get("ABCD"));
+		assertNull(registry.roomHostedBy("h2"));
+		assertNull(registry.roomOfSession("h2"));
+	}
+
+	@Test
+	void addRebindAndRemoveKeepTheSessionIndexInStep() {
+		GameRoom room = register(room("ABCD", "h1"));
+		Player ana = player("p1", "Ana");
+
+		long added = registry.addPlayer(room, ana);
+		assertEquals("ABCD", registry.roomOfSession("p1"));
+
+		long rebound = registry.rebindPlayer(room, ana, "p2");
+		assertEquals("p2", ana.getId());
+		assertNull(registry.roomOfSession("p1"));
+		assertEquals("ABCD", registry.roomOfSession("p2"));
+		// La sesión antigua ya no está en la sala
+		assertEquals(-1, registry.removePlayer(room, "p1"));
+
+		long removed = registry.removePlayer(room, "p2");
+		assertNull(registry.roomOfSession("p2"));
+		assertEquals(1, room.getPlayers().size());
+		assertTrue(added < rebound && rebound < removed);
+		assertEquals(removed, room.getRosterVersion());
+	}
+
+	@Test
+	void rebindHostMovesBothIndexes() {
+		GameRoom room = register(room("ABCD", "h1"));
+		long before = room.getRosterVersion();
+
+		assertTrue(registry.rebindHost(room, "h2") > before);
+		assertEquals("h2", room.getHost());
+		assertEquals("h2", room.getPlayers().get(0).getId());
+		assertNull(registry.roomHostedBy("h1"));
+		assertNull(registry.roomOfSession("h1"));
+		assertEquals("ABCD", registry.roomHostedBy("h2"));
+		assertEquals("ABCD", registry.roomOfSession("h2"));
+	}
+
+	@Test
+	void removingARoomOnlyDropsItsOwnEntries() {
+		GameRoom first = register(room("AAAA", "h1"));
+		GameRoom second = register(room("BBBB", "h2"));
+		registry.addPlayer(first, player("p1", "Ana"));
+		registry.addPlayer(first, player("p2", "Luis"));
+		// p2 se ha ido a otra sala sin que la primera lo haya quitado todavía
+		registry.addPlayer(second, player("p2", "Luis"));
+
+		assertSame(first, registry.remove("aaaa"));
+		assertNull(registry.get("AAAA"));
+		assertNull(registry.roomHostedBy("h1"));
+		assertNull(registry.roomOfSession("h1"));
+		assertNull(registry.roomOfSession("p1"));
+		assertEquals("BBBB", registry.roomOfSession("p2"));
+		assertEquals("BBBB", registry.roomHostedBy("h2"));
+		assertEquals(1, registry.size());
+		assertNull(registry.remove("AAAA"));
+	}
+
+	private GameRoom register(GameRoom room) {
+		assertTrue(registry.registerIfAbsent(room));
+		return room;
+	}
+
+	private static GameRoom room(String code, String host) {
+		GameRoom room = new GameRoom(host, new GameConfig());
+		room.setCode(code);
+		room.getPlayers().add(new Player(host, "Game Master", true, true, new Date()));
+		return room;
+	}
+
+	private static Player player(String id, String name) {
+		return new Player(id, name, false, false, new Date());
+	}
+}
@@ -0,0 +1,173 @@
+package com.discobingohits.login_sockets_bingo.journal;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.Player;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Recuperación del journal sobre un directorio temporal, sin Spring
+class RoomJournalTests {
+	private static final long NO_SNAPSHOT_MS = 3_600_000;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void restartRecoversLatestStateOfEachRoom() throws Exception {
+		RoomJournal journal = open(1 << 16, NO_SNAPSHOT_MS);
+		GameRoom first = room("AAAA", "s1", "ana");
+		GameRoom second = room("BBBB", "s2", "luis");
+		journal.roomChanged(first);
+		journal.roomChanged(second);
+		first.setPhase("playing");
+		journal.roomChanged(first);
+		journal.roomRemoved("BBBB");
+		journal.shutdown();
+
+		Map<String, GameRoom> rooms = recover(1 << 16);
+		assertEquals(1, rooms.size());
+		GameRoom restored = rooms.get("AAAA");
+		assertEquals("playing", restored.getPhase());
+		assertEquals("s1", restored.getHost());
+		assertEquals("ana", restored.getHostUsername());
+		assertTrue(restored.isAwaitingHost());
+	}
+
+	@Test
+	void replayStopsAtFirstCorruptRecord() throws Exception {
+		byte[] first = payload(room("AAAA", "s1", "ana"));
+		byte[] second = payload(room("BBBB", "s2", "luis"));
+		byte[] third = payload(room("CCCC", "s3", "eva"));
+		ByteArrayOutputStream segment = new ByteArrayOutputStream();
+		segment.write(record(first));
+		byte[] corrupt = record(second);
+		corrupt[corrupt.length - 2] ^= 0x7f;
+		segment.write(corrupt);
+		segment.write(record(third));
+		Files.write(dir.resolve("journal-1.log"), segment.toByteArray());
+
+		// Lo que va detrás de un registro a medio escribir no se reproduce
+		Map<String, GameRoom> rooms = recover(1 << 16);
+		assertEquals(List.of("AAAA"), List.copyOf(rooms.keySet()));
+	}
+
+	@Test
+	void truncatedTailIsIgnored() throws Exception {
+		byte[] first = record(payload(room("AAAA", "s1", "ana")));
+		byte[] second = record(payload(room("BBBB", "s2", "luis")));
+		byte[] segment = new byte[first.length + second.length / 2];
+		System.arraycopy(first, 0, segment, 0, first.length);
+		System.arraycopy(second, 0, segment, first.length, second.length / 2);
+		Files.write(dir.resolve("journal-1.log"), segment);
+
+		Map<String, GameRoom> rooms = recover(1 << 16);
+		assertEquals(List.of("AAAA"), List.copyOf(rooms.keySet()));
+	}
+
+	@Test
+	void recordLargerThanSegmentIsRejected() throws Exception {
+		RoomJournal journal = open(4096, NO_SNAPSHOT_MS);
+		GameRoom big = room("AAAA", "s1", "ana");
+		for (int i = 0; i < 100; i++) {
+			Player player = new Player();
+			player.setId("jugador-con-id-largo-" + i);
+			player.setName("Jugador " + i);
+			big.getPlayers().add(player);
+		}
+		journal.roomChanged(big);
+		journal.roomChanged(room("BBBB", "s2", "luis"));
+		journal.shutdown();
+
+		// El registro que no cabe se descarta sin impedir escribir los siguientes
+		Map<String, GameRoom> rooms = recover(4096);
+		assertEquals(List.of("BBBB"), List.copyOf(rooms.keySet()));
+	}
+
+	@Test
+	void recordsSpanSeveralSegments() throws Exception {
+		RoomJournal journal = open(2048, NO_SNAPSHOT_MS);
+		for (int i = 0; i < 40; i++) {
+			journal.roomChanged(room("R" + i, "s" + i, "user" + i));
+		}
+		journal.shutdown();
+
+		assertEquals(40, recover(2048).size());
+	}
+
+	@Test
+	void idleJournalDoesNotRotate() throws Exception {
+		RoomJournal journal = open(1 << 16, 20);
+		List<String> before = files();
+		Thread.sleep(200);
+		assertEquals(before, files());
+
+		journal.roomChanged(room("AAAA", "s1", "ana"));
+		long deadline = System.currentTimeMillis() + 2000;
+		while (files().equals(before) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertFalse(files().equals(before), "El cambio no llegó a un snapshot nuevo");
+		journal.shutdown();
+	}
+
+	private RoomJournal open(int segmentBytes, long snapshotIntervalMs) throws IOException {
+		return new RoomJournal(true, dir.toString(), segmentBytes, 1, snapshotIntervalMs, new SimpleMeterRegistry());
+	}
+
+	private Map<String, GameRoom> recover(int segmentBytes) throws IOException {
+		RoomJournal journal = open(segmentBytes, NO_SNAPSHOT_MS);
+		try {
+			return journal.drainRecoveredRooms().stream()
+					.collect(Collectors.toMap(GameRoom::getCode, Function.identity()));
+		} finally {
+			journal.shutdown();
+		}
+	}
+
+	private List<String> files() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.map(file -> file.getFileName().toString()).sorted().toList();
+		}
+	}
+
+	private static GameRoom room(String code, String host, String username) {
+		GameRoom room = new GameRoom(host, new GameConfig());
+		room.setCode(code);
+		room.setHostUsername(username);
+		return room;
+	}
+
+	private static byte[] payload(GameRoom room) throws IOException {
+		return new ObjectMapper().writeValueAsBytes(JournalRecord.of(room));
+	}
+
+	// Mismo formato que escribe el journal: [longitud][crc32][JSON]
+	private static byte[] record(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return ByteBuffer.allocate(8 + payload.length)
+				.putInt(payload.length)
+				.putInt((int) crc.getValue())
+				.put(payload)
+				.array();
+	}
+}
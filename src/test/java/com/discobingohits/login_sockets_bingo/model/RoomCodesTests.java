@@ -0,0 +1,60 @@
+package com.discobingohits.login_sockets_bingo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomCodesTests {
+
+	@Test
+	void keyIgnoresCase() {
+		assertEquals(RoomCodes.key("ABC123"), RoomCodes.key("abc123"));
+		assertTrue(RoomCodes.key("ABC123") > 0);
+	}
+
+	@Test
+	void keysAreUniquePerCode() {
+		// Base biyectiva: los ceros a la izquierda cuentan
+		assertNotEquals(RoomCodes.key("0A"), RoomCodes.key("A"));
+		assertNotEquals(RoomCodes.key("00"), RoomCodes.key("0"));
+		assertTrue(RoomCodes.key("ZZZZZZZZZZZZ") > 0);
+	}
+
+	@Test
+	void invalidCodesHaveNoKey() {
+		assertEquals(-1, RoomCodes.key(null));
+		assertEquals(-1, RoomCodes.key(""));
+		assertEquals(-1, RoomCodes.key("ABCDEFGHJKLMN"));
+		assertEquals(-1, RoomCodes.key("AB-12"));
+		assertEquals(-1, RoomCodes.key("ÑAND"));
+	}
+
+	@Test
+	void nonAsciiDigitsAndLettersAreRejected() {
+		// Dígitos árabe-índicos y devanagari, y letras/dígitos de ancho completo
+		assertEquals(-1, RoomCodes.key("١٢٣"));
+		assertEquals(-1, RoomCodes.key("१२"));
+		assertEquals(-1, RoomCodes.key("ＡＢＣ"));
+		assertEquals(-1, RoomCodes.key("AB１"));
+	}
+
+	@Test
+	void randomCodesUseTheAlphabet() {
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			String code = RoomCodes.random();
+			assertEquals(RoomCodes.GENERATED_LENGTH, code.length());
+			for (char c : code.toCharArray()) {
+				assertTrue(RoomCodes.ALPHABET.indexOf(c) >= 0, "Carácter fuera del alfabeto: " + c);
+			}
+			assertTrue(RoomCodes.key(code) > 0);
+			seen.add(code);
+		}
+		assertTrue(seen.size() > 990);
+	}
+}
@@ -0,0 +1,151 @@
+package com.discobingohits.login_sockets_bingo.netty;
+
+import com.discobingohits.login_sockets_bingo.broadcast.BroadcastEngine;
+import com.discobingohits.login_sockets_bingo.broadcast.SlowConsumerPolicy;
+import com.discobingohits.login_sockets_bingo.cluster.ClusterRouter;
+import com.discobingohits.login_sockets_bingo.cluster.LoopbackClusterBus;
+import com.discobingohits.login_sockets_bingo.config.SocketExecutors;
+import com.discobingohits.login_sockets_bingo.handler.GameWebSocketHandler;
+import com.discobingohits.login_sockets_bingo.handler.RateLimitPolicy;
+import com.discobingohits.login_sockets_bingo.journal.RoomJournal;
+import com.discobingohits.login_sockets_bingo.protocol.InboundDecoder;
+import com.discobingohits.login_sockets_bingo.protocol.OutboundWriter;
+import com.discobingohits.login_sockets_bingo.security.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Servidor Netty real en un puerto libre y clientes WebSocket del JDK
+class NettySocketServerTests {
+	private static final String ROOM_CODE = "ABCD";
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final SocketExecutors executors = new SocketExecutors(1, 2, new StandardEnvironment());
+	private final JwtService jwtService = new JwtService(100, 600, registry);
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+	private RoomJournal journal;
+	private NettySocketServer server;
+
+	@BeforeEach
+	void start() throws Exception {
+		OutboundWriter writer = new OutboundWriter();
+		InboundDecoder decoder = new InboundDecoder();
+		BroadcastEngine engine = new BroadcastEngine(executors, 5000, 1000, 1000, 1 << 20,
+				SlowConsumerPolicy.DISCONNECT, 250, registry);
+		ClusterRouter router = new ClusterRouter(false, "test", List.of("test"), 1,
+				new LoopbackClusterBus(), engine, decoder, writer, registry);
+		journal = new RoomJournal(false, "target/journal", 1 << 16, 10, 3_600_000, registry);
+		GameWebSocketHandler handler = new GameWebSocketHandler(engine, decoder, writer, router, journal, executors,
+				0, 1800, 21600, 600, false, "", "", RateLimitPolicy.DROP, false, 50, Set.of(), registry);
+		server = new NettySocketServer(handler, jwtService, executors, 0, 1, 256, 65536, false, 2, 1000);
+		server.start();
+	}
+
+	@AfterEach
+	void stop() {
+		server.stop();
+		journal.shutdown();
+		executors.shutdown();
+	}
+
+	@Test
+	void createJoinBroadcastAndClose() throws Exception {
+		Client host = connect("gm");
+		host.send("{\"event\":\"createRoom\",\"data\":{\"messageId\":\"c-1\",\"config\":{\"roomCode\":\""
+				+ ROOM_CODE + "\",\"difficulty\":\"normal\",\"maxPlayers\":4}}}");
+		assertNotNull(host.await("roomCreated"));
+
+		Client ana = connect("ana");
+		ana.send("{\"event\":\"joinRoom\",\"data\":{\"roomCode\":\"" + ROOM_CODE + "\",\"name\":\"Ana\"}}");
+		assertNotNull(ana.await("roomJoined"));
+		assertNotNull(host.await("playerAdded"));
+
+		host.send("{\"event\":\"enableMarking\",\"data\":{\"roomCode\":\"" + ROOM_CODE + "\"}}");
+		assertNotNull(host.await("markingEnabled"));
+		assertNotNull(ana.await("markingEnabled"));
+
+		// El último mensaje antes del cierre se procesa antes de que el handler sepa del cierre
+		ana.send("{\"event\":\"playerReady\",\"data\":{\"roomCode\":\"" + ROOM_CODE + "\",\"messageId\":\"r-1\"}}");
+		ana.socket.sendClose(WebSocket.NORMAL_CLOSURE, "adiós");
+		String ready = host.next();
+		assertNotNull(ready);
+		assertTrue(ready.contains("playerChanged"), ready);
+		assertNotNull(host.await("playerRemoved"));
+		assertEquals(WebSocket.NORMAL_CLOSURE, ana.closed.get(2, TimeUnit.SECONDS).intValue());
+
+		host.socket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+		assertEquals(WebSocket.NORMAL_CLOSURE, host.closed.get(2, TimeUnit.SECONDS).intValue());
+	}
+
+	private Client connect(String username) throws Exception {
+		Client client = new Client();
+		URI uri = URI.create("ws://localhost:" + server.getPort() + "/socket/ws?token="
+				+ jwtService.generateToken(username));
+		client.socket = httpClient.newWebSocketBuilder().buildAsync(uri, client).get(2, TimeUnit.SECONDS);
+		return client;
+	}
+
+	// Guarda cada mensaje de texto completo; closed lleva el código con que cerró el servidor
+	private static final class Client implements WebSocket.Listener {
+		final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+		final CompletableFuture<Integer> closed = new CompletableFuture<>();
+		private final StringBuilder partial = new StringBuilder();
+		WebSocket socket;
+
+		void send(String json) throws Exception {
+			socket.sendText(json, true).get(2, TimeUnit.SECONDS);
+		}
+
+		String next() throws InterruptedException {
+			return received.poll(2, TimeUnit.SECONDS);
+		}
+
+		String await(String fragment) throws InterruptedException {
+			String message;
+			while ((message = next()) != null && !message.contains(fragment)) {
+				// se descarta
+			}
+			return message;
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+			partial.append(data);
+			if (last) {
+				received.add(partial.toString());
+				partial.setLength(0);
+			}
+			webSocket.request(1);
+			return null;
+		}
+
+		@Override
+		public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+			closed.complete(statusCode);
+			return null;
+		}
+
+		@Override
+		public void onError(WebSocket webSocket, Throwable error) {
+			closed.completeExceptionally(error);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InboundDecoderTests {
+	private final InboundDecoder decoder = new InboundDecoder();
+
+	@Test
+	void rawFieldsAreTheExactTextOfThePayload() throws Exception {
+		// Caracteres fuera de ASCII antes del campo para que un desfase en los offsets se note
+		String songData = "{ \"title\": \"Canción 🎵\",\n  \"tags\": [1, {\"a\": null}] }";
+		String payload = "{\"event\":\"revealSong\",\"data\":{\"messageId\":\"ñandú 🎶\",\"songData\": "
+				+ songData + " ,\"category\":\"pop\",\"roomCode\":\"ABCD\"}}";
+
+		InboundCommand command = decoder.decode(payload);
+		assertEquals(InboundEvent.REVEAL_SONG, command.getEvent());
+		assertEquals(songData, command.getSongData());
+		assertEquals("\"pop\"", command.getCategory());
+		assertEquals("ABCD", command.getRoomCode());
+		assertEquals("ñandú 🎶", command.getMessageId());
+	}
+
+	@Test
+	void cborFramesAreTranscodedToJson() throws Exception {
+		Map<String, Object> song = new LinkedHashMap<>();
+		song.put("title", "Canción");
+		song.put("year", 1979);
+		song.put("tags", List.of("disco", "70s"));
+		byte[] cbor = new CBORMapper().writeValueAsBytes(Map.of(
+				"event", "revealSong",
+				"data", Map.of("roomCode", "ABCD", "songData", song, "category", "pop")));
+		String json = "{\"title\":\"Canción\",\"year\":1979,\"tags\":[\"disco\",\"70s\"]}";
+
+		// El frame puede empezar a mitad de un array más grande, o venir en un buffer directo
+		byte[] padded = new byte[cbor.length + 7];
+		System.arraycopy(cbor, 0, padded, 3, cbor.length);
+		ByteBuffer direct = ByteBuffer.allocateDirect(cbor.length);
+		direct.put(cbor).flip();
+		for (ByteBuffer frame : List.of(ByteBuffer.wrap(cbor), ByteBuffer.wrap(padded, 3, cbor.length).slice(),
+				ByteBuffer.wrap(padded, 3, cbor.length), direct)) {
+			InboundCommand command = decoder.decode(frame);
+			assertEquals(InboundEvent.REVEAL_SONG, command.getEvent());
+			assertEquals("ABCD", command.getRoomCode());
+			assertEquals(json, command.getSongData());
+			assertEquals("\"pop\"", command.getCategory());
+		}
+	}
+
+	@Test
+	void malformedMaxPlayersIsTreatedAsMissing() throws Exception {
+		assertEquals(Integer.valueOf(8), maxPlayers("\"8\""));
+		assertEquals(Integer.valueOf(8), maxPlayers("8"));
+		for (String value : List.of("\"muchos\"", "\"\"", "3.5", "12345678901", "[4]", "{\"n\":4}", "null")) {
+			assertNull(maxPlayers(value), value);
+		}
+
+		// El resto del mensaje se sigue leyendo y la sala usa el máximo por defecto
+		InboundCommand command = decoder.decode("{\"event\":\"createRoom\",\"data\":{\"config\":"
+				+ "{\"maxPlayers\":\"muchos\",\"roomCode\":\"ABCD\"},\"messageId\":\"c-1\"}}");
+		assertEquals(InboundEvent.CREATE_ROOM, command.getEvent());
+		assertEquals("ABCD", command.getRequestedRoomCode());
+		assertEquals("c-1", command.getMessageId());
+		assertEquals(12, command.toGameConfig().getMaxPlayers());
+	}
+
+	@Test
+	void eachDecodeStartsFromAClearCommand() throws Exception {
+		decoder.decode("{\"event\":\"joinRoom\",\"data\":{\"roomCode\":\"ABCD\",\"name\":\"Ana\",\"maxPlayers\":4}}");
+		InboundCommand command = decoder.decode("{\"event\":\"syncRoster\",\"data\":{\"rosterVersion\":7}}");
+
+		assertEquals(InboundEvent.SYNC_ROSTER, command.getEvent());
+		assertNull(command.getRoomCode());
+		assertNull(command.getName());
+		assertNull(command.getMaxPlayers());
+		assertEquals(7, command.getRosterVersion());
+		assertNull(decoder.decode("[]").getEvent());
+	}
+
+	private Integer maxPlayers(String value) throws Exception {
+		return decoder.decode("{\"event\":\"joinRoom\",\"data\":{\"maxPlayers\":" + value + ",\"roomCode\":\"ABCD\"}}")
+				.getMaxPlayers();
+	}
+}
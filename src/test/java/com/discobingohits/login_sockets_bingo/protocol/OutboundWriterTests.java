@@ -0,0 +1,142 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.discobingohits.login_sockets_bingo.model.GameState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundWriterTests {
+	private final OutboundWriter writer = new OutboundWriter(64);
+
+	@AfterEach
+	void releaseDeflaters() {
+		writer.shutdown();
+	}
+
+	@Test
+	void smallMessagesStayAsText() {
+		TextMessage json = new TextMessage("{\"event\":\"markingEnabled\"}");
+		assertSame(json, writer.deflate(json));
+	}
+
+	@Test
+	void largeMessagesRoundTripThroughRawDeflate() throws Exception {
+		String payload = json(0);
+		WebSocketMessage<?> deflated = writer.deflate(new TextMessage(payload));
+
+		assertTrue(deflated instanceof BinaryMessage);
+		assertTrue(deflated.getPayloadLength() < payload.length());
+		assertEquals(payload, inflate((BinaryMessage) deflated));
+	}
+
+	@Test
+	void concurrentCallersNeverShareADeflater() throws Exception {
+		AtomicReference<String> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 16; t++) {
+			int seed = t;
+			threads.add(new Thread(() -> {
+				try {
+					for (int i = 0; i < 200; i++) {
+						String payload = json(seed * 1000 + i);
+						String back = inflate((BinaryMessage) writer.deflate(new TextMessage(payload)));
+						if (!payload.equals(back)) {
+							failure.set("Salida corrupta en el hilo " + seed);
+						}
+					}
+				} catch (Exception e) {
+					failure.set(e.toString());
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join(10_000);
+		}
+		assertNull(failure.get());
+	}
+
+	@Test
+	void configEncodingIsReusedUntilTheConfigChanges() throws Exception {
+		GameConfig config = new GameConfig();
+		config.setRoomCode("ABCD");
+		GameRoom room = new GameRoom("h1", config);
+
+		String first = writer.encodedConfig(room).getJson();
+		assertTrue(first.contains("\"maxPlayers\":12"), first);
+		assertSame(first, writer.encodedConfig(room).getJson());
+
+		// Un cambio hecho sobre el objeto solo se ve tras avisar a la sala
+		config.setMaxPlayers(4);
+		assertSame(first, writer.encodedConfig(room).getJson());
+		room.configChanged();
+		assertTrue(writer.encodedConfig(room).getJson().contains("\"maxPlayers\":4"));
+
+		GameConfig replaced = new GameConfig();
+		replaced.setDifficulty("hard");
+		room.setConfig(replaced);
+		assertTrue(writer.encodedConfig(room).getJson().contains("\"difficulty\":\"hard\""));
+	}
+
+	@Test
+	void gameStateEncodingIsDroppedWhenTheStateIsReplaced() throws Exception {
+		GameRoom room = new GameRoom("h1", new GameConfig());
+		assertNull(writer.encodedGameState(room));
+
+		room.setGameState(new GameState("easy", new Date(0), 1));
+		String first = writer.encodedGameState(room).getJson();
+		assertTrue(first.contains("\"currentRound\":1"), first);
+		assertSame(first, writer.encodedGameState(room).getJson());
+
+		room.setGameState(new GameState("easy", new Date(0), 2));
+		assertTrue(writer.encodedGameState(room).getJson().contains("\"currentRound\":2"));
+		room.setGameState(null);
+		assertNull(writer.encodedGameState(room));
+	}
+
+	private static String json(int seed) {
+		StringBuilder json = new StringBuilder("{\"event\":\"playersUpdate\",\"players\":[");
+		for (int i = 0; i < 30; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"id\":\"s").append(seed).append('-').append(i)
+					.append("\",\"name\":\"Jugador ").append(i).append("\",\"ready\":false}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String inflate(BinaryMessage message) throws DataFormatException {
+		ByteBuffer payload = message.getPayload().duplicate();
+		byte[] input = new byte[payload.remaining()];
+		payload.get(input);
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(input);
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			while (!inflater.finished() && !inflater.needsInput()) {
+				output.write(buffer, 0, inflater.inflate(buffer));
+			}
+			return output.toString(StandardCharsets.UTF_8);
+		} finally {
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.discobingohits.login_sockets_bingo.protocol;
+
+import com.discobingohits.login_sockets_bingo.StubSession;
+import com.discobingohits.login_sockets_bingo.model.GameConfig;
+import com.discobingohits.login_sockets_bingo.model.GameRoom;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Del parámetro "encoding" del handshake hasta el frame que sale por la sesión
+class WireFormatTests {
+	private final OutboundWriter writer = new OutboundWriter();
+	private final ObjectMapper json = new ObjectMapper();
+	private final CBORMapper cbor = new CBORMapper();
+
+	@Test
+	void parameterIsCaseInsensitiveAndDefaultsToJson() {
+		assertEquals(WireFormat.CBOR, WireFormat.fromParameter("cbor"));
+		assertEquals(WireFormat.CBOR, WireFormat.fromParameter("CBOR"));
+		assertEquals(WireFormat.JSON_DEFLATE, WireFormat.fromParameter("Json-Deflate"));
+		assertEquals(WireFormat.JSON, WireFormat.fromParameter("json"));
+		assertEquals(WireFormat.JSON, WireFormat.fromParameter("msgpack"));
+		assertEquals(WireFormat.JSON, WireFormat.fromParameter(""));
+		assertEquals(WireFormat.JSON, WireFormat.fromParameter(null));
+	}
+
+	@Test
+	void handshakeStoresTheRequestedFormatOnTheSession() {
+		assertEquals(WireFormat.CBOR, negotiate("token=abc&encoding=CBOR"));
+		assertEquals(WireFormat.JSON_DEFLATE, negotiate("encoding=json-deflate"));
+		assertEquals(WireFormat.JSON, negotiate("token=abc"));
+		assertEquals(WireFormat.JSON, negotiate(null));
+	}
+
+	@Test
+	void sessionWithoutAFormatUsesJson() {
+		StubSession session = new StubSession("s1");
+		assertEquals(WireFormat.JSON, WireFormat.of(session));
+		session.getAttributes().put(WireFormat.ATTRIBUTE, "cbor");
+		assertEquals(WireFormat.JSON, WireFormat.of(session));
+		session.getAttributes().put(WireFormat.ATTRIBUTE, WireFormat.CBOR);
+		assertEquals(WireFormat.CBOR, WireFormat.of(session));
+	}
+
+	@Test
+	void cborFramesCarryTheSameDocumentAsJson() throws Exception {
+		OutboundEvent notice = new OutboundEvents.Notice("roomExpired", "m-1");
+		WebSocketMessage<?> binary = writer.encode(notice, WireFormat.CBOR);
+		WebSocketMessage<?> text = writer.encode(notice, WireFormat.JSON);
+		assertTrue(binary instanceof BinaryMessage, binary.getClass().getName());
+		assertTrue(text instanceof TextMessage, text.getClass().getName());
+		assertEquals(json.readTree(((TextMessage) text).getPayload()), cbor.readTree(bytes(binary)));
+
+		// Los fragmentos ya codificados en JSON se transcodifican, no se meten como texto
+		GameRoom room = new GameRoom("h1", new GameConfig());
+		RawJson config = writer.encodedConfig(room);
+		JsonNode decoded = cbor.readTree(bytes(writer.encode(config, WireFormat.CBOR)));
+		assertTrue(decoded.isObject(), decoded.toString());
+		assertEquals(json.readTree(config.getJson()), decoded);
+	}
+
+	private static WireFormat negotiate(String query) {
+		MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/socket/ws");
+		servletRequest.setQueryString(query);
+		Map<String, Object> attributes = new HashMap<>();
+		boolean proceed = new WireFormatNegotiator().beforeHandshake(new ServletServerHttpRequest(servletRequest),
+				null, null, attributes);
+		assertTrue(proceed);
+		return (WireFormat) attributes.get(WireFormat.ATTRIBUTE);
+	}
+
+	private static byte[] bytes(WebSocketMessage<?> message) {
+		ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+		byte[] bytes = new byte[payload.remaining()];
+		payload.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,67 @@
+package com.discobingohits.login_sockets_bingo.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// TTL de caché muy largo: lo que caduca antes lo marca el exp del token
+class JwtServiceTests {
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final JwtService jwtService = new JwtService(100, 3600, registry);
+
+	@Test
+	void validTokenIsVerifiedOnceAndThenServedFromTheCache() {
+		String token = jwtService.generateToken("ana");
+
+		Claims first = jwtService.verify(token).orElseThrow();
+		Claims second = jwtService.verify(token).orElseThrow();
+		assertSame(first, second);
+		assertEquals("ana", first.getSubject());
+		assertEquals(1, verifications("miss", "valid"));
+		assertEquals(1, verifications("hit", "valid"));
+	}
+
+	@Test
+	void cachedTokenIsRejectedOnceItsExpPasses() throws Exception {
+		String token = jwtService.generateToken("ana", 1500);
+		assertTrue(jwtService.verify(token).isPresent());
+		assertTrue(jwtService.verify(token).isPresent());
+
+		Thread.sleep(2000);
+		assertFalse(jwtService.verify(token).isPresent());
+		assertFalse(jwtService.validateToken(token));
+		assertEquals(1, verifications("hit", "valid"));
+		assertEquals(2, verifications("miss", "invalid"));
+	}
+
+	@Test
+	void invalidTokensAreNeverCached() {
+		String token = jwtService.generateToken("ana");
+		// Se cambia un carácter en mitad de la firma, no el último, cuyos bits bajos pueden no contar
+		int at = token.lastIndexOf('.') + 5;
+		String tampered = token.substring(0, at) + (token.charAt(at) == 'A' ? 'B' : 'A') + token.substring(at + 1);
+		String expired = jwtService.generateToken("ana", -1000);
+
+		for (String invalid : new String[] {tampered, expired, "no.es.un.jwt", ""}) {
+			assertEquals(Optional.empty(), jwtService.verify(invalid), invalid);
+			assertEquals(Optional.empty(), jwtService.verify(invalid), invalid);
+		}
+		assertEquals(8, verifications("miss", "invalid"));
+		assertEquals(0, verifications("hit", "valid"));
+
+		// La firma buena sigue valiendo después de los intentos fallidos
+		assertTrue(jwtService.verify(token).isPresent());
+	}
+
+	private long verifications(String cache, String result) {
+		return registry.get("bingo.auth.jwt.verify").tag("cache", cache).tag("result", result).timer().count();
+	}
+}
@@ -0,0 +1,118 @@
+package com.discobingohits.login_sockets_bingo.security;
+
+import com.discobingohits.login_sockets_bingo.controller.AuthController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Un solo hilo de BCrypt y un hueco en la cola; el encoder se queda parado hasta que el test lo suelta
+class PasswordHashingServiceTests {
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final BlockingEncoder encoder = new BlockingEncoder();
+	private final List<PasswordHashingService> services = new ArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		encoder.release.countDown();
+		services.forEach(PasswordHashingService::shutdown);
+	}
+
+	@Test
+	void fullQueueIsRejectedAtOnceWithA503() throws Exception {
+		PasswordHashingService service = service(5000);
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.encode("uno"));
+		assertTrue(encoder.entered.await(2, TimeUnit.SECONDS));
+		CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.encode("dos"));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (service.getQueueSize() < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(1, service.getQueueSize());
+
+		long startedAt = System.nanoTime();
+		PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class,
+				() -> service.encode("tres"));
+		assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(1), "No debe esperar al timeout");
+		assertServiceUnavailable(busy);
+		assertEquals(1.0, rejected("queue_full"));
+		assertEquals(0.0, rejected("timeout"));
+
+		// Lo que ya estaba aceptado termina con normalidad
+		encoder.release.countDown();
+		assertEquals("hash:uno", running.get(2, TimeUnit.SECONDS));
+		assertEquals("hash:dos", queued.get(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void slowHashIsAbandonedAfterTheWaitTimeoutWithA503() throws Exception {
+		PasswordHashingService service = service(100);
+
+		PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class,
+				() -> service.matches("uno", "hash:uno"));
+		assertServiceUnavailable(busy);
+		assertEquals(1.0, rejected("timeout"));
+		assertEquals(0.0, rejected("queue_full"));
+
+		// La tarea cancelada libera el hilo y la siguiente petición se atiende
+		encoder.release.countDown();
+		assertTrue(service.matches("dos", "hash:dos"));
+	}
+
+	private PasswordHashingService service(long waitTimeoutMs) {
+		PasswordHashingService service = new PasswordHashingService(encoder, 1, 1, waitTimeoutMs, registry);
+		services.add(service);
+		return service;
+	}
+
+	private double rejected(String reason) {
+		return registry.get("bingo.auth.hashing.rejected").tag("reason", reason).counter().count();
+	}
+
+	private static void assertServiceUnavailable(PasswordHashingBusyException busy) {
+		ResponseEntity<?> response = new AuthController(null, null).handleHashingBusy(busy);
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+		assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+	}
+
+	private static final class BlockingEncoder implements PasswordEncoder {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			await();
+			return "hash:" + rawPassword;
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			await();
+			return encodedPassword.equals("hash:" + rawPassword);
+		}
+
+		private void await() {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Repositorio real sobre H2: se comprueba cuándo el índice evita la consulta
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AvailabilityIndexTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private AvailabilityIndex index;
+	private Statistics statistics;
+
+	@BeforeEach
+	void loadIndex() {
+		user("Ana", "Ana@Example.com");
+		user("luis", "luis@example.com");
+		index = new AvailabilityIndex(userRepository, transactionManager, 1_000, 0.001, new SimpleMeterRegistry());
+		index.rebuild();
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void unknownValuesAreAnsweredWithoutTheDatabase() {
+		assertTrue(index.isUsernameAvailable("marta"));
+		assertTrue(index.isEmailAvailable("marta@example.com"));
+		assertEquals(0, statistics.getQueryExecutionCount());
+	}
+
+	@Test
+	void caseAndSpacingVariantsReachTheDatabase() {
+		// El filtro no puede decir "libre" para una variante de un valor registrado;
+		// la base de datos distingue mayúsculas y es la que decide
+		assertFalse(index.isUsernameAvailable("Ana"));
+		assertTrue(index.isUsernameAvailable(" ANA "));
+		assertTrue(index.isUsernameAvailable("Luis"));
+		assertTrue(index.isEmailAvailable("ana@example.com"));
+		assertEquals(4, statistics.getQueryExecutionCount());
+	}
+
+	@Test
+	void addedUsersAreNormalizedToo() {
+		index.add("  Marta", "MARTA@example.com ");
+		index.isUsernameAvailable("marta");
+		index.isEmailAvailable("marta@EXAMPLE.com");
+		assertEquals(2, statistics.getQueryExecutionCount());
+	}
+
+	private void user(String username, String email) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(email);
+		user.setPassword("hash");
+		entityManager.persistAndFlush(user);
+	}
+}
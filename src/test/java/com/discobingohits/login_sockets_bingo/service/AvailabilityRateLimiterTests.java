@@ -0,0 +1,60 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// GCRA por cliente con reloj manual: 2 consultas por segundo con ráfaga de 4
+class AvailabilityRateLimiterTests {
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong now = new AtomicLong(7 * SECOND);
+	private final AvailabilityRateLimiter limiter =
+			new AvailabilityRateLimiter(2, 4, 1000, new SimpleMeterRegistry(), now::get);
+
+	@Test
+	void burstIsAllowedThenRefillsAtTheConfiguredRate() {
+		assertEquals(4, takeAll("10.0.0.1"));
+
+		now.addAndGet(SECOND / 4);
+		assertFalse(limiter.tryAcquire("10.0.0.1"));
+		now.addAndGet(SECOND / 4);
+		assertTrue(limiter.tryAcquire("10.0.0.1"));
+		assertFalse(limiter.tryAcquire("10.0.0.1"));
+
+		// Un rato largo sin consultas no acumula más que la ráfaga
+		now.addAndGet(60 * SECOND);
+		assertEquals(4, takeAll("10.0.0.1"));
+	}
+
+	@Test
+	void clientsHaveSeparateBuckets() {
+		assertEquals(4, takeAll("10.0.0.1"));
+		assertFalse(limiter.tryAcquire("10.0.0.1"));
+
+		assertTrue(limiter.tryAcquire("10.0.0.2"));
+	}
+
+	@Test
+	void invalidLimitIsRejected() {
+		assertThrows(IllegalStateException.class,
+				() -> new AvailabilityRateLimiter(0, 4, 1000, new SimpleMeterRegistry(), now::get));
+		assertThrows(IllegalStateException.class,
+				() -> new AvailabilityRateLimiter(2, 0, 1000, new SimpleMeterRegistry(), now::get));
+	}
+
+	private int takeAll(String client) {
+		int taken = 0;
+		while (limiter.tryAcquire(client)) {
+			taken++;
+		}
+		return taken;
+	}
+}
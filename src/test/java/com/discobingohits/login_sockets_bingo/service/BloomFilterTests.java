@@ -0,0 +1,67 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+	@Test
+	void neverForgetsAnInsertedValue() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user" + i);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain("user" + i), "Falso negativo para user" + i);
+		}
+	}
+
+	@Test
+	void falsePositivesStayNearTheRequestedRate() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other" + i)) {
+				falsePositives++;
+			}
+		}
+		// 1 % pedido; se deja margen para la varianza
+		assertTrue(falsePositives < 2_000, "Falsos positivos: " + falsePositives + " de 100000");
+	}
+
+	@Test
+	void emptyFilterContainsNothing() {
+		BloomFilter filter = new BloomFilter(1_000, 0.01);
+		assertFalse(filter.mightContain("ana"));
+		assertFalse(filter.mightContain(""));
+	}
+
+	@Test
+	void concurrentInsertsAreNotLost() throws Exception {
+		BloomFilter filter = new BloomFilter(80_000, 0.01);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			int offset = t * 10_000;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					filter.put("user" + (offset + i));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int i = 0; i < 80_000; i++) {
+			assertTrue(filter.mightContain("user" + i), "Inserción perdida: user" + i);
+		}
+	}
+}
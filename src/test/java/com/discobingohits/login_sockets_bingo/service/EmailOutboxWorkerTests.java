@@ -0,0 +1,129 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.dto.RegisterRequest;
+import com.discobingohits.login_sockets_bingo.model.EmailOutbox;
+import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.repository.EmailOutboxRepository;
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// La cola de emails contra un SMTP en proceso: el worker se dispara a mano
+@SpringBootTest(properties = {
+		"spring.mail.host=localhost",
+		"spring.mail.port=3025",
+		"app.mail.outbox.poll-ms=3600000",
+		"app.mail.outbox.backoff-initial-ms=60000"
+})
+@ActiveProfiles("dev")
+class EmailOutboxWorkerTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP).withPerMethodLifecycle(true);
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private EmailOutboxWorker worker;
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@BeforeEach
+	void clearOutbox() {
+		outboxRepository.deleteAll();
+	}
+
+	@Test
+	void registerQueuesEmailAndWorkerDeliversIt() throws Exception {
+		authService.register(request("outbox-ok", "outbox-ok@example.com"));
+
+		List<EmailOutbox> queued = outboxRepository.findAll();
+		assertEquals(1, queued.size());
+		assertEquals(EmailOutbox.Status.PENDING, queued.get(0).getStatus());
+		assertEquals(0, greenMail.getReceivedMessages().length);
+
+		worker.drain();
+
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertEquals(1, received.length);
+		assertEquals("outbox-ok@example.com", received[0].getAllRecipients()[0].toString());
+		assertEquals("Verifica tu cuenta en Bingo", received[0].getSubject());
+		assertEquals(0, outboxRepository.count());
+	}
+
+	@Test
+	void smtpFailureIsRetriedWithBackoff() {
+		authService.register(request("outbox-retry", "outbox-retry@example.com"));
+		greenMail.stop();
+
+		long before = System.currentTimeMillis();
+		worker.drain();
+
+		EmailOutbox email = outboxRepository.findAll().get(0);
+		assertEquals(EmailOutbox.Status.PENDING, email.getStatus());
+		assertEquals(1, email.getAttempts());
+		assertNotNull(email.getLastError());
+		assertNull(email.getClaimedBy());
+		assertTrue(email.getNextAttemptAt().getTime() >= before + 60000);
+
+		// Antes de que venza el backoff no se vuelve a intentar
+		greenMail.start();
+		worker.drain();
+		assertEquals(0, greenMail.getReceivedMessages().length);
+		assertEquals(1, outboxRepository.findAll().get(0).getAttempts());
+
+		email.setNextAttemptAt(new Date());
+		outboxRepository.save(email);
+		worker.drain();
+
+		assertEquals(1, greenMail.getReceivedMessages().length);
+		assertEquals(0, outboxRepository.count());
+	}
+
+	@Test
+	void nothingIsSentWhenRegisterRollsBack() {
+		// Insertado sin pasar por el índice de disponibilidad: el alta falla dentro de la transacción
+		User existing = new User();
+		existing.setUsername("outbox-rollback");
+		existing.setEmail("outbox-rollback@example.com");
+		existing.setPassword("x");
+		userRepository.save(existing);
+
+		RuntimeException error = assertThrows(RuntimeException.class,
+				() -> authService.register(request("outbox-rollback", "outbox-rollback-2@example.com")));
+		assertEquals("Username already exists", error.getMessage());
+
+		assertEquals(0, outboxRepository.count());
+		worker.drain();
+		assertEquals(0, greenMail.getReceivedMessages().length);
+	}
+
+	private static RegisterRequest request(String username, String email) {
+		RegisterRequest request = new RegisterRequest();
+		request.setUsername(username);
+		request.setEmail(email);
+		request.setPassword("secreto123");
+		return request;
+	}
+}
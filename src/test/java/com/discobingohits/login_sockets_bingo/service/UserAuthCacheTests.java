@@ -0,0 +1,90 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Repositorio real sobre H2; las estadísticas de Hibernate cuentan las consultas.
+// Como en el esquema real, el username distingue mayúsculas
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserAuthCacheTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private UserAuthCache cache;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		cache = new UserAuthCache(userRepository, 100, 300, new SimpleMeterRegistry());
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void enabledUsersAreServedFromTheCache() {
+		user("Ana", "hash-1", true);
+
+		assertEquals("hash-1", cache.find("Ana").orElseThrow().passwordHash());
+		assertEquals("hash-1", cache.find("Ana").orElseThrow().passwordHash());
+		assertEquals(1, statistics.getQueryExecutionCount());
+	}
+
+	@Test
+	void unverifiedUsersAreNotCached() {
+		User luis = user("luis", "hash-2", false);
+
+		assertFalse(cache.find("luis").orElseThrow().enabled());
+		luis.setEnabled(true);
+		assertTrue(cache.find("luis").orElseThrow().enabled());
+		assertEquals(2, statistics.getQueryExecutionCount());
+	}
+
+	@Test
+	void invalidateUsesTheSameKeyAsTheLookup() {
+		User ana = user("Ana", "hash-1", true);
+		cache.find("Ana");
+
+		ana.setPassword("hash-2");
+		cache.invalidate(" ana");
+		assertEquals("hash-2", cache.find("Ana").orElseThrow().passwordHash());
+		assertEquals(2, statistics.getQueryExecutionCount());
+	}
+
+	@Test
+	void otherSpellingsStillAskTheDatabase() {
+		user("Ana", "hash-1", true);
+		cache.find("Ana");
+
+		// Comparten clave en la caché, pero es la base de datos la que decide que "ana" no existe
+		assertTrue(cache.find("ana").isEmpty());
+		assertEquals(2, statistics.getQueryExecutionCount());
+		assertEquals("hash-1", cache.find("Ana").orElseThrow().passwordHash());
+		assertEquals(2, statistics.getQueryExecutionCount());
+	}
+
+	private User user(String username, String passwordHash, boolean enabled) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username.toLowerCase() + "@example.com");
+		user.setPassword(passwordHash);
+		user.setEnabled(enabled);
+		return entityManager.persistAndFlush(user);
+	}
+}
@@ -0,0 +1,165 @@
+package com.discobingohits.login_sockets_bingo.service;
+
+import com.discobingohits.login_sockets_bingo.model.User;
+import com.discobingohits.login_sockets_bingo.model.VerificationToken;
+import com.discobingohits.login_sockets_bingo.repository.UserRepository;
+import com.discobingohits.login_sockets_bingo.repository.VerificationTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Repositorios reales sobre H2; las transacciones del servicio se unen a la del test
+@DataJpaTest
+class VerificationTokenServiceTests {
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	@Autowired
+	private VerificationTokenRepository tokenRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private VerificationTokenService service;
+
+	@BeforeEach
+	void setUp() {
+		// Lotes de 2 para que la purga dé varias vueltas
+		service = new VerificationTokenService(tokenRepository, userRepository,
+				new TransactionTemplate(transactionManager), 48, 2, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void onlyTheHashOfTheTokenIsStored() throws Exception {
+		User user = user("ana");
+		long before = System.currentTimeMillis();
+		String token = service.issue(user);
+
+		VerificationToken stored = tokenRepository.findAll().get(0);
+		assertNotEquals(token, stored.getTokenHash());
+		assertEquals(sha256(token), stored.getTokenHash());
+		assertEquals(64, stored.getTokenHash().length());
+		long expiresIn = stored.getExpiresAt().getTime() - before;
+		assertTrue(expiresIn >= 48 * HOUR && expiresIn < 48 * HOUR + 60_000, "Caducidad: " + expiresIn);
+
+		// Cada token es distinto aunque sea para el mismo usuario
+		assertNotEquals(token, service.issue(user));
+	}
+
+	@Test
+	void verifyEnablesTheUserAndConsumesTheToken() {
+		User user = user("ana");
+		String token = service.issue(user);
+
+		assertEquals("ana", service.verify(token));
+		entityManager.flush();
+		entityManager.clear();
+		assertTrue(userRepository.findByUsername("ana").orElseThrow().isEnabled());
+		assertEquals(0, tokenRepository.count());
+		assertThrows(RuntimeException.class, () -> service.verify(token));
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		User user = user("ana");
+		String token = service.issue(user);
+		tokenRepository.findAll().get(0).setExpiresAt(new Date(System.currentTimeMillis() - 1));
+
+		assertThrows(RuntimeException.class, () -> service.verify(token));
+		assertFalse(user.isEnabled());
+	}
+
+	@Test
+	void legacyColumnTokenIsMovedToTheTableOnce() {
+		User luis = user("luis");
+		luis.setVerificationToken("antiguo");
+		User marta = user("marta");
+		marta.setEnabled(true);
+		marta.setVerificationToken("ya-usado");
+		entityManager.flush();
+		long before = System.currentTimeMillis();
+
+		service.migrateLegacyTokens();
+		service.migrateLegacyTokens();
+		entityManager.flush();
+		entityManager.clear();
+
+		assertNull(userRepository.findByUsername("luis").orElseThrow().getVerificationToken());
+		assertNull(userRepository.findByUsername("marta").orElseThrow().getVerificationToken());
+		// Solo la cuenta sin verificar recibe fila, con el plazo contado desde la migración
+		List<VerificationToken> tokens = tokenRepository.findAll();
+		assertEquals(1, tokens.size());
+		long expiresIn = tokens.get(0).getExpiresAt().getTime() - before;
+		assertTrue(expiresIn >= 48 * HOUR && expiresIn < 48 * HOUR + 60_000, "Caducidad: " + expiresIn);
+		assertEquals("luis", service.verify("antiguo"));
+	}
+
+	@Test
+	void purgeDeletesExpiredTokensAndTheAccountsLeftUnverified() {
+		for (int i = 1; i <= 5; i++) {
+			service.issue(user("u" + i));
+		}
+		tokenRepository.findAll().forEach(token -> token.setExpiresAt(new Date(System.currentTimeMillis() - HOUR)));
+		// Ya verificada por otro lado: pierde el token caducado pero no la cuenta
+		userRepository.findByUsername("u5").orElseThrow().setEnabled(true);
+		service.issue(user("u6"));
+		entityManager.flush();
+
+		service.purgeExpired();
+		entityManager.clear();
+
+		List<VerificationToken> tokens = tokenRepository.findAll();
+		assertEquals(1, tokens.size());
+		assertEquals("u6", tokens.get(0).getUser().getUsername());
+		assertEquals(List.of("u5", "u6"), userRepository.findAll().stream().map(User::getUsername).sorted().toList());
+	}
+
+	@Test
+	void purgeWithNothingExpiredDeletesNothing() {
+		service.issue(user("ana"));
+		entityManager.flush();
+
+		service.purgeExpired();
+		entityManager.clear();
+
+		assertEquals(1, tokenRepository.count());
+		assertEquals(1, userRepository.count());
+	}
+
+	private User user(String username) {
+		User user = new User();
+		user.setUsername(username);
+		user.setEmail(username + "@example.com");
+		user.setPassword("hash");
+		return entityManager.persistAndFlush(user);
+	}
+
+	private static String sha256(String token) throws Exception {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+	}
+}